@@ -16,6 +16,16 @@ public abstract class AbstractProcess implements Runnable {
 
 	protected int Id;
 
+	// set if the other processes live in other JVMs, see TransportClient
+	private TransportClient transport;
+
+	// set if consistent snapshots are taken while the processes run
+	private SnapshotCoordinator snapshots;
+
+	// set if the processes run under a DeterministicScheduler instead of the
+	// OS scheduler, then waiting passes the baton instead of sleeping
+	private DeterministicScheduler scheduler;
+
 	public AbstractProcess(Monitor monitor, AbstractProcess[] processes, int Id) {
 		this.monitor = monitor;
 		this.processes = processes;
@@ -42,18 +52,35 @@ public abstract class AbstractProcess implements Runnable {
 	 * @param message
 	 */
 	public void send(int processId, Message message) {
+		if (transport != null) {
+			transport.send(this.Id, processId, message);
+			return;
+		}
+		if (scheduler != null)
+			scheduler.passBaton(this.Id);
+		if (snapshots != null)
+			snapshots.poll(this.Id);
 
 		processes[processId].setNewVariable(this.Id, message);
 
+		if (snapshots != null)
+			snapshots.messageSent(this.Id, processId);
 		processes[processId].setNewVariableFlag(this.Id, true);
 
 		// wait till process [processId] receive the event
-		while (!processes[processId].getReceivedVariableFlag(this.Id))
+		while (!processes[processId].getReceivedVariableFlag(this.Id)) {
+			if (snapshots != null)
+				snapshots.poll(this.Id);
+			if (scheduler != null) {
+				scheduler.passBaton(this.Id);
+				continue;
+			}
 			try {
 				Thread.sleep(10);
 			} catch (InterruptedException e) {
 				e.printStackTrace();
 			}
+		}
 		processes[processId].setReceivedVariableFlag(this.Id, false);
 	}
 
@@ -63,19 +90,39 @@ public abstract class AbstractProcess implements Runnable {
 	 * @return
 	 */
 	public Message receive(int processId) {
+		long start = System.nanoTime();
+		if (transport != null) {
+			Message message = transport.receive(this.Id, processId);
+			monitor.addReceiveWaitTime(this.Id, System.nanoTime() - start);
+			return message;
+		}
+
+		if (scheduler != null)
+			scheduler.passBaton(this.Id);
+
 		// wait till process [processId] send the event
-		while (!this.getNewVariableFlag(processId))
+		while (!this.getNewVariableFlag(processId)) {
+			if (snapshots != null)
+				snapshots.poll(this.Id);
+			if (scheduler != null) {
+				scheduler.passBaton(this.Id);
+				continue;
+			}
 			try {
 				Thread.sleep(10);
 			} catch (InterruptedException e) {
 				// TODO Auto-generated catch block
 				e.printStackTrace();
 			}
+		}
 
 		Message temp;
 		//synchronized (newVariables) {
 			temp = this.newVariables[processId];
 		//}
+		monitor.addReceiveWaitTime(this.Id, System.nanoTime() - start);
+		if (snapshots != null)
+			snapshots.messageReceived(processId, this.Id, temp);
 
 		// reset newVariableFlag
 		this.setNewVariableFlag(processId, false);
@@ -116,6 +163,25 @@ public abstract class AbstractProcess implements Runnable {
 		Id = id;
 	}
 	
+	public void setTransport(TransportClient transport) {
+		this.transport = transport;
+	}
+
+	/**
+	 * @return a new clock for this process in the mode of the Monitor
+	 */
+	protected VectorClock createVectorClock() {
+		return new VectorClock(monitor.getClockMode(), this.Id, this.numberOfProcesses);
+	}
+
+	void setSnapshotCoordinator(SnapshotCoordinator snapshots) {
+		this.snapshots = snapshots;
+	}
+
+	void setScheduler(DeterministicScheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
 	public int getLocalVariable() {
 		return localVariable;
 	}
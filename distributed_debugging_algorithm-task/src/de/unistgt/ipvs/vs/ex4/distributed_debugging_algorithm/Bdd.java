@@ -0,0 +1,261 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Minimal reduced ordered binary decision diagram package used by
+ * SymbolicLattice. A BDD is an int node id; 0 is false, 1 is true. Variables
+ * are ordered by their number, smaller numbers closer to the root. Nodes are
+ * never freed, a Bdd instance lives as long as one check.
+ */
+class Bdd {
+
+	static final int FALSE = 0;
+	static final int TRUE = 1;
+
+	private static final int OP_AND = 0;
+	private static final int OP_OR = 1;
+	private static final int OP_XOR = 2;
+	private static final int OP_EXISTS = 3;
+	private static final int OP_RENAME = 4;
+
+	private final int numberOfVariables;
+
+	// node table
+	private int[] var;
+	private int[] low;
+	private int[] high;
+	private int nodes;
+
+	// unique table, open addressing over node ids (0 = empty slot)
+	private int[] unique;
+
+	// computed table, direct mapped
+	private final int[] cacheOp;
+	private final int[] cacheA;
+	private final int[] cacheB;
+	private final int[] cacheResult;
+
+	// argument of the current exists / rename call
+	private boolean[] quantified;
+	private int[] renaming;
+	private int operationTag;
+
+	Bdd(int numberOfVariables) {
+		this.numberOfVariables = numberOfVariables;
+
+		int capacity = 1 << 16;
+		var = new int[capacity];
+		low = new int[capacity];
+		high = new int[capacity];
+		unique = new int[capacity * 2];
+
+		// terminals sit below every variable
+		var[FALSE] = numberOfVariables;
+		var[TRUE] = numberOfVariables;
+		nodes = 2;
+
+		int cacheSize = 1 << 18;
+		cacheOp = new int[cacheSize];
+		Arrays.fill(cacheOp, -1);
+		cacheA = new int[cacheSize];
+		cacheB = new int[cacheSize];
+		cacheResult = new int[cacheSize];
+	}
+
+	int getNumberOfVariables() {
+		return numberOfVariables;
+	}
+
+	/**
+	 * @return number of nodes allocated so far
+	 */
+	int getNodeCount() {
+		return nodes;
+	}
+
+	int variable(int v) {
+		return mk(v, FALSE, TRUE);
+	}
+
+	int not(int f) {
+		return apply(OP_XOR, f, TRUE);
+	}
+
+	int and(int f, int g) {
+		return apply(OP_AND, f, g);
+	}
+
+	int or(int f, int g) {
+		return apply(OP_OR, f, g);
+	}
+
+	/**
+	 * existential quantification of all variables v with variables[v] set
+	 */
+	int exists(int f, boolean[] variables) {
+		quantified = variables;
+		// results depend on the variable set, so keep them apart in the cache
+		operationTag++;
+		return exists(f);
+	}
+
+	/**
+	 * rename variables, newVariable[v] replaces v. The renaming must keep the
+	 * variable order of every node of f.
+	 */
+	int rename(int f, int[] newVariable) {
+		renaming = newVariable;
+		operationTag++;
+		return rename(f);
+	}
+
+	/**
+	 * @return the value of f under a full assignment
+	 */
+	boolean evaluate(int f, boolean[] assignment) {
+		while (f > TRUE)
+			f = assignment[var[f]] ? high[f] : low[f];
+		return f == TRUE;
+	}
+
+	private int exists(int f) {
+		if (f <= TRUE)
+			return f;
+		int cached = lookup(OP_EXISTS, f, operationTag);
+		if (cached >= 0)
+			return cached;
+
+		int l = exists(low[f]);
+		int h = exists(high[f]);
+		int result = quantified[var[f]] ? or(l, h) : mk(var[f], l, h);
+
+		store(OP_EXISTS, f, operationTag, result);
+		return result;
+	}
+
+	private int rename(int f) {
+		if (f <= TRUE)
+			return f;
+		int cached = lookup(OP_RENAME, f, operationTag);
+		if (cached >= 0)
+			return cached;
+
+		int result = mk(renaming[var[f]], rename(low[f]), rename(high[f]));
+
+		store(OP_RENAME, f, operationTag, result);
+		return result;
+	}
+
+	private int apply(int op, int f, int g) {
+		switch (op) {
+		case OP_AND:
+			if (f == FALSE || g == FALSE)
+				return FALSE;
+			if (f == TRUE)
+				return g;
+			if (g == TRUE || f == g)
+				return f;
+			break;
+		case OP_OR:
+			if (f == TRUE || g == TRUE)
+				return TRUE;
+			if (f == FALSE)
+				return g;
+			if (g == FALSE || f == g)
+				return f;
+			break;
+		case OP_XOR:
+			if (f == g)
+				return FALSE;
+			if (f == FALSE)
+				return g;
+			if (g == FALSE)
+				return f;
+			break;
+		}
+		// commutative operations, normalize for the cache
+		if (f > g) {
+			int t = f;
+			f = g;
+			g = t;
+		}
+
+		int cached = lookup(op, f, g);
+		if (cached >= 0)
+			return cached;
+
+		int v = Math.min(var[f], var[g]);
+		int fl = var[f] == v ? low[f] : f;
+		int fh = var[f] == v ? high[f] : f;
+		int gl = var[g] == v ? low[g] : g;
+		int gh = var[g] == v ? high[g] : g;
+
+		int result = mk(v, apply(op, fl, gl), apply(op, fh, gh));
+
+		store(op, f, g, result);
+		return result;
+	}
+
+	private int mk(int v, int l, int h) {
+		if (l == h)
+			return l;
+
+		int mask = unique.length - 1;
+		int slot = hash(v, l, h) & mask;
+		while (unique[slot] != 0) {
+			int n = unique[slot];
+			if (var[n] == v && low[n] == l && high[n] == h)
+				return n;
+			slot = (slot + 1) & mask;
+		}
+
+		if (nodes == var.length) {
+			grow();
+			return mk(v, l, h);
+		}
+
+		int n = nodes++;
+		var[n] = v;
+		low[n] = l;
+		high[n] = h;
+		unique[slot] = n;
+		return n;
+	}
+
+	private void grow() {
+		int capacity = var.length * 2;
+		var = Arrays.copyOf(var, capacity);
+		low = Arrays.copyOf(low, capacity);
+		high = Arrays.copyOf(high, capacity);
+
+		unique = new int[capacity * 2];
+		int mask = unique.length - 1;
+		for (int n = 2; n < nodes; n++) {
+			int slot = hash(var[n], low[n], high[n]) & mask;
+			while (unique[slot] != 0)
+				slot = (slot + 1) & mask;
+			unique[slot] = n;
+		}
+	}
+
+	private int lookup(int op, int a, int b) {
+		int slot = hash(op, a, b) & (cacheOp.length - 1);
+		if (cacheOp[slot] == op && cacheA[slot] == a && cacheB[slot] == b)
+			return cacheResult[slot];
+		return -1;
+	}
+
+	private void store(int op, int a, int b, int result) {
+		int slot = hash(op, a, b) & (cacheOp.length - 1);
+		cacheOp[slot] = op;
+		cacheA[slot] = a;
+		cacheB[slot] = b;
+		cacheResult[slot] = result;
+	}
+
+	private static int hash(int a, int b, int c) {
+		int h = a * 0x9E3779B1 + b * 0x85EBCA77 + c * 0xC2B2AE3D;
+		return h ^ (h >>> 15);
+	}
+}
@@ -0,0 +1,71 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+/**
+ * Like part (b) of DebugTest, but the predicates are checked by calling
+ * Monitor.buildLattice directly after the processes terminated, without
+ * running the monitor. Checked with both clock modes.
+ */
+public class BuildLatticeTest {
+
+	public static void main(String[] args) throws InterruptedException {
+		boolean testResult = testBuildLattice(VectorClock.Mode.VECTOR)
+				& testBuildLattice(VectorClock.Mode.DIRECT_DEPENDENCY);
+
+		if (testResult)
+			System.out.println("Test succeeded!");
+		else
+			System.out.println("Test failed!");
+	}
+
+	private static boolean testBuildLattice(VectorClock.Mode clockMode) throws InterruptedException {
+		System.out.println("Check buildLattice called directly, " + clockMode + " clocks");
+
+		// instantiation and run threads
+		int numberOfProcesses = 2;
+		Monitor monitor = new Monitor(numberOfProcesses, clockMode);
+		AbstractProcess[] processes = new AbstractProcess[numberOfProcesses];
+
+		Process1 process1 = new Process1(monitor, processes, 0);
+		processes[0] = process1;
+
+		Process2 process2 = new Process2(monitor, processes, 1);
+		processes[1] = process2;
+
+		Thread process1Thread = new Thread(process1);
+		Thread process2Thread = new Thread(process2);
+
+		process1Thread.start();
+		process2Thread.start();
+
+		process1Thread.join();
+		process2Thread.join();
+
+		for (int predicateNo = 0; predicateNo < 3; predicateNo++)
+			monitor.buildLattice(predicateNo, 0, 1);
+
+		// checking ---------------
+
+		boolean[] possiblyTruePredicatesIndex = monitor.getPossiblyTruePredicatesIndex();
+		boolean[] definitelyTruePredicatesIndex = monitor.getDefinitelyTruePredicatesIndex();
+
+		// predicate0
+		if (possiblyTruePredicatesIndex[0] != true)
+			return false;
+		if (definitelyTruePredicatesIndex[0] != true)
+			return false;
+
+		// predicate1
+		if (possiblyTruePredicatesIndex[1] != true)
+			return false;
+		if (definitelyTruePredicatesIndex[1] != false)
+			return false;
+
+		// predicate2
+		if (possiblyTruePredicatesIndex[2] != false)
+			return false;
+		if (definitelyTruePredicatesIndex[2] != false)
+			return false;
+
+		return true;
+	}
+}
@@ -0,0 +1,78 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.List;
+
+/**
+ * Rebuilds the vector clocks of a run recorded with
+ * VectorClock.Mode.DIRECT_DEPENDENCY. The clock of an event is the clock of
+ * the previous event of its process, merged with the clock of the event it
+ * received from (if any), with the own component set to its counter. Since
+ * every event is logged, counter c of process q is event c in the queue of q.
+ *
+ * Events are expanded in causal order: a process advances while the event its
+ * next event depends on is already expanded. Afterwards the queues hold
+ * ordinary vector clocks and checkConsistency works as in VECTOR mode.
+ */
+final class CausalityReconstructor {
+
+	private CausalityReconstructor() {
+	}
+
+	/**
+	 * expand all DIRECT_DEPENDENCY clocks in place; VECTOR clocks are left
+	 * as they are
+	 *
+	 * @throws IllegalStateException
+	 *             if an event depends on an event that was never logged
+	 */
+	static void reconstruct(List<List<Message>> processesMessages) {
+		int numberOfProcesses = processesMessages.size();
+		// next[k] = first event of process k that is not expanded yet
+		int[] next = new int[numberOfProcesses];
+
+		boolean progress = true;
+		while (progress) {
+			progress = false;
+			for (int k = 0; k < numberOfProcesses; k++) {
+				List<Message> messages = processesMessages.get(k);
+
+				while (next[k] < messages.size()) {
+					VectorClock clock = messages.get(next[k]).getVectorClock();
+					if (!clock.isExpanded() && !expand(processesMessages, next, k, clock))
+						break;
+					next[k]++;
+					progress = true;
+				}
+			}
+		}
+
+		for (int k = 0; k < numberOfProcesses; k++)
+			if (next[k] < processesMessages.get(k).size())
+				throw new IllegalStateException("event " + next[k] + " of process " + k
+						+ " depends on an event that was never logged");
+	}
+
+	/**
+	 * @return false if the event clock depends on is not expanded yet
+	 */
+	private static boolean expand(List<List<Message>> processesMessages, int[] next, int k, VectorClock clock) {
+		if (clock.getCounter() != next[k])
+			throw new IllegalStateException("event " + next[k] + " of process " + k + " has counter "
+					+ clock.getCounter() + ", every increment has to be reported to the Monitor");
+
+		int q = clock.getDependencyProcessId();
+		if (q >= 0 && clock.getDependencyCounter() >= next[q])
+			return false;
+
+		int[] vectorClock = next[k] == 0 ? new int[processesMessages.size()]
+				: processesMessages.get(k).get(next[k] - 1).getVectorClock().get().clone();
+		if (q >= 0) {
+			int[] dependency = processesMessages.get(q).get(clock.getDependencyCounter()).getVectorClock().get();
+			for (int m = 0; m < vectorClock.length; m++)
+				vectorClock[m] = Math.max(vectorClock[m], dependency[m]);
+		}
+		vectorClock[k] = clock.getCounter();
+		clock.expand(vectorClock);
+		return true;
+	}
+}
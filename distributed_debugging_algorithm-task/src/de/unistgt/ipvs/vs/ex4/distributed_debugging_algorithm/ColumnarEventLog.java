@@ -0,0 +1,84 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Monitor side of the EventRing. Consumed records are appended to primitive
+ * arrays per process (local variables and clocks, column by column), so the
+ * ingestion does not allocate per event. Messages are only created once, when
+ * the run is handed to the Monitor for analysis.
+ */
+public class ColumnarEventLog implements EventRing.EventSink {
+
+	private final int numberOfProcesses;
+
+	private int[][] localVariables;
+	// clocks[k][e * numberOfProcesses + m] = component m of event e of process k
+	private int[][] clocks;
+	private final int[] sizes;
+
+	public ColumnarEventLog(int numberOfProcesses) {
+		this.numberOfProcesses = numberOfProcesses;
+		localVariables = new int[numberOfProcesses][1024];
+		clocks = new int[numberOfProcesses][1024 * numberOfProcesses];
+		sizes = new int[numberOfProcesses];
+	}
+
+	@Override
+	public void onEvent(EventRing ring, int processId, int record) {
+		int e = sizes[processId];
+		if (e == localVariables[processId].length) {
+			localVariables[processId] = Arrays.copyOf(localVariables[processId], 2 * e);
+			clocks[processId] = Arrays.copyOf(clocks[processId], 2 * e * numberOfProcesses);
+		}
+
+		localVariables[processId][e] = ring.getLocalVariable(record);
+		int[] clock = clocks[processId];
+		int offset = e * numberOfProcesses;
+		for (int m = 0; m < numberOfProcesses; m++)
+			clock[offset + m] = ring.getClock(record, m);
+
+		sizes[processId] = e + 1;
+	}
+
+	public int size(int processId) {
+		return sizes[processId];
+	}
+
+	/**
+	 * report all events to the monitor as messages
+	 */
+	public void deliverTo(Monitor monitor) {
+		for (int k = 0; k < numberOfProcesses; k++) {
+			for (int e = 0; e < sizes[k]; e++) {
+				VectorClock vectorClock = new VectorClock(k, numberOfProcesses);
+				System.arraycopy(clocks[k], e * numberOfProcesses, vectorClock.vectorClock, 0, numberOfProcesses);
+				monitor.receiveMessage(k, new Message(vectorClock, localVariables[k][e]));
+			}
+		}
+	}
+
+	/**
+	 * consume the ring till all producers terminated, then hand the run to the
+	 * monitor and report the terminations, which starts its analysis
+	 */
+	public static void ingest(EventRing ring, Monitor monitor) {
+		int n = ring.getNumberOfProcesses();
+		ColumnarEventLog log = new ColumnarEventLog(n);
+
+		boolean drained = false;
+		while (!drained) {
+			if (ring.consume(log) == 0) {
+				drained = true;
+				for (int k = 0; k < n; k++)
+					drained &= ring.isDrained(k);
+				if (!drained)
+					Thread.yield();
+			}
+		}
+
+		log.deliverTo(monitor);
+		for (int k = 0; k < n; k++)
+			monitor.processTerminated(k);
+	}
+}
@@ -0,0 +1,214 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs processes cooperatively: every process has its own thread, but only
+ * the process holding the baton runs. A process gives the baton away when it
+ * sends, receives, waits for the other side or terminates, and the next
+ * process is drawn from a seeded Random. The same seed gives the same
+ * interleaving, and no process ever sleeps, so a run takes microseconds
+ * instead of multiples of the 10 ms polling interval.
+ *
+ * A process waiting for a message just passes the baton on when it gets it,
+ * so a deadlock shows as steps without progress; run() gives up after
+ * maxSteps. A process that throws (also an Error) aborts the run, run()
+ * rethrows it. Only processes in one JVM are supported.
+ */
+public class DeterministicScheduler {
+
+	/**
+	 * unwinds the process threads when a run is aborted
+	 */
+	private static class Abort extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	private final long seed;
+	private final Random random;
+	private long maxSteps = 1000000;
+
+	private Thread[] threads;
+	private boolean[] terminated;
+	private int running;
+	private long steps;
+	private Thread caller;
+	private Throwable failure;
+	// hash over the processes that got the baton, in order
+	private long fingerprint = 17;
+
+	// process holding the baton, the handoff publishes all fields above
+	private volatile int current;
+	private volatile boolean finished;
+	private volatile boolean aborted;
+
+	public DeterministicScheduler(long seed) {
+		this.seed = seed;
+		random = new Random(seed);
+	}
+
+	/**
+	 * @param maxSteps
+	 *            scheduling decisions after which run() assumes a deadlock
+	 */
+	public void setMaxSteps(long maxSteps) {
+		this.maxSteps = maxSteps;
+	}
+
+	/**
+	 * run the processes to termination; the scheduler can run only once
+	 *
+	 * @return number of scheduling decisions
+	 * @throws IllegalStateException
+	 *             if the processes did not terminate within maxSteps, or a
+	 *             process failed; then the cause is what the process threw
+	 */
+	public long run(AbstractProcess[] processes) {
+		if (threads != null)
+			throw new IllegalStateException("a scheduler runs only once, create one per run");
+
+		int numberOfProcesses = processes.length;
+		threads = new Thread[numberOfProcesses];
+		terminated = new boolean[numberOfProcesses];
+		running = numberOfProcesses;
+		caller = Thread.currentThread();
+		current = -1;
+
+		for (int k = 0; k < numberOfProcesses; k++) {
+			final int processId = k;
+			final AbstractProcess process = processes[k];
+			process.setScheduler(this);
+			threads[k] = new Thread(() -> body(processId, process), "scheduled-process-" + k);
+			threads[k].setDaemon(true);
+			threads[k].start();
+		}
+
+		handOff(next());
+		while (!finished)
+			LockSupport.park(this);
+
+		if (failure != null)
+			throw new IllegalStateException("process failed with seed " + seed, failure);
+		if (aborted)
+			throw new IllegalStateException(
+					"processes did not terminate within " + maxSteps + " steps with seed " + seed + ", deadlock?");
+		return steps;
+	}
+
+	/**
+	 * @return a hash over the sequence of scheduling decisions of run(), the
+	 *         same seed and processes give the same fingerprint
+	 */
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * give the baton away and wait to get it back, called by process
+	 * (processId) at every send, receive and wait
+	 */
+	void passBaton(int processId) {
+		if (++steps > maxSteps) {
+			abort();
+			throw new Abort();
+		}
+
+		int next = next();
+		if (next != processId) {
+			handOff(next);
+			awaitTurn(processId);
+		}
+	}
+
+	private void body(int processId, AbstractProcess process) {
+		try {
+			awaitTurn(processId);
+			process.run();
+		} catch (Abort e) {
+			return;
+		} catch (Throwable e) {
+			// an Error too, else the baton is never passed on and run() parks
+			// forever
+			failure = e;
+			abort();
+			return;
+		}
+
+		terminated[processId] = true;
+		if (--running == 0) {
+			finished = true;
+			LockSupport.unpark(caller);
+		} else {
+			steps++;
+			handOff(next());
+		}
+	}
+
+	/**
+	 * @return a process that did not terminate, drawn by the seeded Random
+	 */
+	private int next() {
+		int choice = random.nextInt(running);
+		for (int k = 0; k < terminated.length; k++)
+			if (!terminated[k] && choice-- == 0) {
+				fingerprint = fingerprint * 31 + k;
+				return k;
+			}
+		throw new IllegalStateException("no process left to run");
+	}
+
+	private void handOff(int processId) {
+		current = processId;
+		LockSupport.unpark(threads[processId]);
+	}
+
+	private void awaitTurn(int processId) {
+		while (current != processId) {
+			if (aborted)
+				throw new Abort();
+			LockSupport.park(this);
+		}
+	}
+
+	private void abort() {
+		aborted = true;
+		finished = true;
+		for (Thread thread : threads)
+			LockSupport.unpark(thread);
+		LockSupport.unpark(caller);
+	}
+
+	/**
+	 * run part (b) of DebugTest under many seeds and report the schedules per
+	 * second; the analysis of the Monitor is not timed
+	 *
+	 * @param args
+	 *            [numberOfSchedules]
+	 */
+	public static void main(String[] args) {
+		int schedules = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+		long nanos = 0;
+		long steps = 0;
+		int failed = 0;
+		for (int seed = 0; seed < schedules; seed++) {
+			Monitor monitor = new Monitor(2);
+			AbstractProcess[] processes = new AbstractProcess[2];
+			processes[0] = new Process1(monitor, processes, 0);
+			processes[1] = new Process2(monitor, processes, 1);
+
+			long start = System.nanoTime();
+			steps += new DeterministicScheduler(seed).run(processes);
+			nanos += System.nanoTime() - start;
+			monitor.run();
+
+			if (processes[0].getLocalVariable() != 10 || processes[1].getLocalVariable() != 25
+					|| !monitor.getPossiblyTruePredicatesIndex()[1] || monitor.getDefinitelyTruePredicatesIndex()[1])
+				failed++;
+		}
+
+		System.out.printf("%d schedules, %d steps, %.0f schedules/s, %d with wrong results%n", schedules, steps,
+				schedules / (nanos / 1e9), failed);
+	}
+}
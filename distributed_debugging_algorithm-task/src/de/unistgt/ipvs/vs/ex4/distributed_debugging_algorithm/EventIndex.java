@@ -0,0 +1,199 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar copy of the event queues with a value index per process, built
+ * once when the analysis starts. Local variables and vector clocks are kept in
+ * primitive arrays, and the events of every process are additionally sorted by
+ * their local variable, so all events with a given value are found by binary
+ * search.
+ *
+ * For the predicates of Predicate, the value of x2 that satisfies the
+ * predicate for a given x1 is known, so possibly is decided by looking up the
+ * matching events of process j for every event of process i and checking only
+ * those pairs. Two events are part of a common consistent state iff they are
+ * pairwise consistent (the state formed by the union of their causal pasts),
+ * so no lattice has to be built.
+ */
+public class EventIndex {
+
+	private final int numberOfProcesses;
+	private final List<List<Message>> processesMessages;
+
+	// localVariables[k][e] = local variable of event e of process k
+	private final int[][] localVariables;
+	// clocks[k][e * numberOfProcesses + m] = component m of the clock of event e of process k
+	private final int[][] clocks;
+
+	// events of process k sorted by local variable, and their values
+	private final int[][] eventsByValue;
+	private final int[][] sortedValues;
+
+	public EventIndex(List<List<Message>> processesMessages) {
+		this.processesMessages = processesMessages;
+		numberOfProcesses = processesMessages.size();
+
+		localVariables = new int[numberOfProcesses][];
+		clocks = new int[numberOfProcesses][];
+		eventsByValue = new int[numberOfProcesses][];
+		sortedValues = new int[numberOfProcesses][];
+
+		for (int k = 0; k < numberOfProcesses; k++) {
+			List<Message> messages = processesMessages.get(k);
+			int size = messages.size();
+
+			localVariables[k] = new int[size];
+			clocks[k] = new int[size * numberOfProcesses];
+			long[] valueAndEvent = new long[size];
+			for (int e = 0; e < size; e++) {
+				Message message = messages.get(e);
+				localVariables[k][e] = message.getLocalVariable();
+				System.arraycopy(message.getVectorClock().get(), 0, clocks[k], e * numberOfProcesses,
+						numberOfProcesses);
+				// sort key: value in the high word (offset to sort negative values correctly), event below
+				valueAndEvent[e] = ((long) message.getLocalVariable() - Integer.MIN_VALUE) << 32 | e;
+			}
+			Arrays.sort(valueAndEvent);
+
+			eventsByValue[k] = new int[size];
+			sortedValues[k] = new int[size];
+			for (int n = 0; n < size; n++) {
+				eventsByValue[k][n] = (int) valueAndEvent[n];
+				sortedValues[k][n] = localVariables[k][eventsByValue[k][n]];
+			}
+		}
+	}
+
+	public int size(int processId) {
+		return localVariables[processId].length;
+	}
+
+	public int getLocalVariable(int processId, int event) {
+		return localVariables[processId][event];
+	}
+
+	public int getClock(int processId, int event, int component) {
+		return clocks[processId][event * numberOfProcesses + component];
+	}
+
+	/**
+	 * @return true if event a of process i and event b of process j can be the
+	 *         latest events of i and j in one consistent state, the same test
+	 *         as VectorClock.checkConsistency
+	 */
+	public boolean isConsistent(int i, int a, int j, int b) {
+		return getClock(j, b, j) >= getClock(i, a, j) && getClock(i, a, i) >= getClock(j, b, i);
+	}
+
+	/**
+	 * @return number of events of process k with local variable value
+	 */
+	public int countEvents(int k, int value) {
+		return upperBound(k, value) - lowerBound(k, value);
+	}
+
+	/**
+	 * @return true if the predicate holds in at least one consistent state
+	 */
+	public boolean possibly(int predicateNo, int process_i_id, int process_j_id) {
+		int[] candidates = new int[2];
+
+		for (int a = 0; a < size(process_i_id); a++) {
+			int count = candidateValues(predicateNo, localVariables[process_i_id][a], candidates);
+
+			for (int c = 0; c < count; c++) {
+				int from = lowerBound(process_j_id, candidates[c]);
+				int to = upperBound(process_j_id, candidates[c]);
+				for (int n = from; n < to; n++) {
+					int b = eventsByValue[process_j_id][n];
+					if (!isConsistent(process_i_id, a, process_j_id, b))
+						continue;
+					// the index only narrows the pairs down, the predicate decides
+					if (Predicate.evaluate(predicateNo, processesMessages.get(process_i_id).get(a),
+							processesMessages.get(process_j_id).get(b)))
+						return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * values of x2 that satisfy predicate (predicateNo) for x1. Computed in
+	 * long like Predicate; values outside the int range cannot be a local
+	 * variable and are skipped.
+	 *
+	 * @return number of values written to candidates
+	 */
+	static int candidateValues(int predicateNo, int x1, int[] candidates) {
+		long x = x1;
+		int count = 0;
+		switch (predicateNo) {
+		case 0:
+			// |3 x1 - 4 x2| = 25
+			if (Math.floorMod(3 * x - 25, 4) == 0)
+				count = addCandidate(Math.floorDiv(3 * x - 25, 4), candidates, count);
+			if (Math.floorMod(3 * x + 25, 4) == 0)
+				count = addCandidate(Math.floorDiv(3 * x + 25, 4), candidates, count);
+			return count;
+		case 1:
+			// x1 - x2 = 15
+			return addCandidate(x - 15, candidates, count);
+		case 2:
+			// x1 + x2 = 30
+			return addCandidate(30 - x, candidates, count);
+		case 3:
+			// x1 - x3 = 8
+			return addCandidate(x - 8, candidates, count);
+		default:
+			throw new IllegalArgumentException("unknown predicate " + predicateNo);
+		}
+	}
+
+	/**
+	 * @return count + 1 if value is an int and was added at candidates[count],
+	 *         else count
+	 */
+	private static int addCandidate(long value, int[] candidates, int count) {
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+			return count;
+		candidates[count] = (int) value;
+		return count + 1;
+	}
+
+	/**
+	 * @return first position in sortedValues[k] with a value >= value
+	 */
+	private int lowerBound(int k, int value) {
+		int[] values = sortedValues[k];
+		int low = 0;
+		int high = values.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (values[middle] < value)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/**
+	 * @return first position in sortedValues[k] with a value > value
+	 */
+	private int upperBound(int k, int value) {
+		int[] values = sortedValues[k];
+		int low = 0;
+		int high = values.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (values[middle] <= value)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+}
@@ -0,0 +1,258 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Shared memory event log between processes and the monitor. The ring lives
+ * in a memory mapped file, so producers in other JVMs of the same host can
+ * report events without a socket. Every process owns one single producer /
+ * single consumer ring of fixed size records:
+ *
+ * <pre>
+ * file    = header | region 0 | region 1 | ... | region n-1
+ * header  = int magic | int numberOfProcesses | int capacity | int recordSize
+ * region  = long written | long read | long terminated | capacity * record
+ * record  = int sequence | int localVariable | numberOfProcesses * int clock
+ * </pre>
+ *
+ * terminated is 0 while the process runs and its event count + 1 after.
+ *
+ * A record is committed by writing its sequence number (1 based) last, the
+ * consumer only reads records whose sequence matches. The record stores the
+ * low 32 bits of the sequence only, which wrap after 2^32 events of a
+ * process. That does no harm: a slot holds the record of the expected lap or
+ * of the lap before, and their sequences differ by capacity, which is less
+ * than 2^32, so they never look alike. written and read are longs and do not
+ * wrap.
+ *
+ * Neither publishing nor consuming allocates on the heap: consume hands out
+ * record coordinates to an EventSink which reads the values in place.
+ *
+ * Plain MappedByteBuffer accesses are not ordered, neither by the JIT nor by
+ * weakly ordered CPUs (ARM, POWER), so the protocol places fences of
+ * sun.misc.Unsafe (Java 8 has no VarHandles):
+ * - the producer issues a store fence between the payload and the sequence,
+ * so a consumer that sees the sequence sees the payload. The same fence
+ * orders the last sequence before the terminated mark.
+ * - the consumer issues a load fence between reading the sequence and
+ * reading the payload.
+ * - the consumer issues a store fence before it releases records through the
+ * read position, and the producer a load fence after reading it, so a slot
+ * is not overwritten while it is read.
+ * Every ring must have exactly one producer thread.
+ */
+public class EventRing implements AutoCloseable {
+
+	/**
+	 * receives the records of consume(); read the values with
+	 * getLocalVariable and getClock while inside onEvent
+	 */
+	public interface EventSink {
+		void onEvent(EventRing ring, int processId, int record);
+	}
+
+	private static final int MAGIC = 0x45564e54; // EVNT
+	private static final int HEADER_SIZE = 16;
+	private static final int REGION_HEADER_SIZE = 24;
+
+	// Unsafe.storeFence and Unsafe.loadFence, looked up reflectively since
+	// sun.misc is not part of the Java 8 API; constant handles are inlined
+	private static final MethodHandle STORE_FENCE;
+	private static final MethodHandle LOAD_FENCE;
+
+	static {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			Object unsafe = field.get(null);
+			MethodType type = MethodType.methodType(void.class);
+			STORE_FENCE = MethodHandles.lookup().findVirtual(unsafeClass, "storeFence", type).bindTo(unsafe);
+			LOAD_FENCE = MethodHandles.lookup().findVirtual(unsafeClass, "loadFence", type).bindTo(unsafe);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final RandomAccessFile file;
+	private final MappedByteBuffer buffer;
+
+	private final int numberOfProcesses;
+	private final int capacity;
+	private final int recordSize;
+	private final int regionSize;
+
+	// producer and consumer positions cached per process
+	private final long[] written;
+	private final long[] read;
+
+	/**
+	 * create (or reset) a ring file
+	 *
+	 * @param capacity
+	 *            records per process
+	 */
+	public static EventRing create(File path, int numberOfProcesses, int capacity) throws IOException {
+		int recordSize = 4 * (2 + numberOfProcesses);
+		long size = HEADER_SIZE + (long) numberOfProcesses * (REGION_HEADER_SIZE + (long) capacity * recordSize);
+		if (size > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("ring does not fit in one mapping");
+
+		RandomAccessFile file = new RandomAccessFile(path, "rw");
+		file.setLength(0);
+		file.setLength(size);
+		MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		buffer.putInt(4, numberOfProcesses);
+		buffer.putInt(8, capacity);
+		buffer.putInt(12, recordSize);
+		buffer.putInt(0, MAGIC);
+		return new EventRing(file, buffer);
+	}
+
+	/**
+	 * open a ring created by another JVM
+	 */
+	public static EventRing open(File path) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(path, "rw");
+		MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, file.length());
+		if (buffer.getInt(0) != MAGIC) {
+			file.close();
+			throw new IOException(path + " is not an event ring");
+		}
+		return new EventRing(file, buffer);
+	}
+
+	private EventRing(RandomAccessFile file, MappedByteBuffer buffer) {
+		this.file = file;
+		this.buffer = buffer;
+		numberOfProcesses = buffer.getInt(4);
+		capacity = buffer.getInt(8);
+		recordSize = buffer.getInt(12);
+		regionSize = REGION_HEADER_SIZE + capacity * recordSize;
+
+		written = new long[numberOfProcesses];
+		read = new long[numberOfProcesses];
+		for (int k = 0; k < numberOfProcesses; k++) {
+			written[k] = buffer.getLong(region(k));
+			read[k] = buffer.getLong(region(k) + 8);
+		}
+	}
+
+	public int getNumberOfProcesses() {
+		return numberOfProcesses;
+	}
+
+	/**
+	 * append an event of process (processId); waits while the ring of the
+	 * process is full. Only one thread may publish for a process.
+	 */
+	public void publish(int processId, int localVariable, int[] clock) {
+		long sequence = written[processId];
+		int region = region(processId);
+
+		// back pressure, the consumer is a full ring behind
+		while (sequence - buffer.getLong(region + 8) >= capacity)
+			Thread.yield();
+		loadFence();
+
+		int record = record(processId, sequence);
+		buffer.putInt(record + 4, localVariable);
+		for (int k = 0; k < numberOfProcesses; k++)
+			buffer.putInt(record + 8 + 4 * k, clock[k]);
+		// commit
+		storeFence();
+		buffer.putInt(record, (int) (sequence + 1));
+
+		written[processId] = sequence + 1;
+		buffer.putLong(region, sequence + 1);
+	}
+
+	public void publish(int processId, Message message) {
+		publish(processId, message.getLocalVariable(), message.getVectorClock().get());
+	}
+
+	public void terminate(int processId) {
+		storeFence();
+		buffer.putLong(region(processId) + 16, written[processId] + 1);
+	}
+
+	/**
+	 * @return true if the process terminated and all its events are consumed
+	 */
+	public boolean isDrained(int processId) {
+		long terminated = buffer.getLong(region(processId) + 16);
+		return terminated != 0 && read[processId] >= terminated - 1;
+	}
+
+	/**
+	 * hand every committed but unread record to sink, the records are released
+	 * afterwards
+	 *
+	 * @return number of consumed records
+	 */
+	public int consume(EventSink sink) {
+		int consumed = 0;
+		for (int k = 0; k < numberOfProcesses; k++) {
+			long sequence = read[k];
+			int record = record(k, sequence);
+			while (buffer.getInt(record) == (int) (sequence + 1)) {
+				loadFence();
+				sink.onEvent(this, k, record);
+				sequence++;
+				consumed++;
+				record = record(k, sequence);
+			}
+			if (sequence != read[k]) {
+				read[k] = sequence;
+				storeFence();
+				buffer.putLong(region(k) + 8, sequence);
+			}
+		}
+		return consumed;
+	}
+
+	public int getLocalVariable(int record) {
+		return buffer.getInt(record + 4);
+	}
+
+	public int getClock(int record, int k) {
+		return buffer.getInt(record + 8 + 4 * k);
+	}
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+	private static void storeFence() {
+		try {
+			STORE_FENCE.invokeExact();
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void loadFence() {
+		try {
+			LOAD_FENCE.invokeExact();
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private int region(int processId) {
+		return HEADER_SIZE + processId * regionSize;
+	}
+
+	private int record(int processId, long sequence) {
+		return region(processId) + REGION_HEADER_SIZE + (int) (sequence % capacity) * recordSize;
+	}
+}
@@ -0,0 +1,67 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.io.File;
+
+/**
+ * Measures the ingestion rate of the shared memory EventRing: one producer
+ * thread per process publishes events, the monitor side consumes them into a
+ * ColumnarEventLog. Producers and consumer use their own mapping of the file,
+ * as they would in separate JVMs.
+ */
+public class EventRingBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		final int numberOfProcesses = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		final int eventsPerProcess = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+		int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 64 * 1024;
+
+		File path = File.createTempFile("event-ring", ".bin");
+		path.deleteOnExit();
+		EventRing.create(path, numberOfProcesses, capacity).close();
+
+		Thread[] producers = new Thread[numberOfProcesses];
+		for (int k = 0; k < numberOfProcesses; k++) {
+			final int processId = k;
+			final EventRing ring = EventRing.open(path);
+			producers[k] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					int[] clock = new int[numberOfProcesses];
+					for (int e = 0; e < eventsPerProcess; e++) {
+						clock[processId]++;
+						ring.publish(processId, e, clock);
+					}
+					ring.terminate(processId);
+				}
+			});
+		}
+
+		EventRing consumer = EventRing.open(path);
+		ColumnarEventLog log = new ColumnarEventLog(numberOfProcesses);
+
+		long start = System.nanoTime();
+		for (Thread producer : producers)
+			producer.start();
+
+		boolean drained = false;
+		while (!drained) {
+			if (consumer.consume(log) == 0) {
+				drained = true;
+				for (int k = 0; k < numberOfProcesses; k++)
+					drained &= consumer.isDrained(k);
+			}
+		}
+		long nanos = System.nanoTime() - start;
+
+		for (Thread producer : producers)
+			producer.join();
+
+		long events = (long) numberOfProcesses * eventsPerProcess;
+		for (int k = 0; k < numberOfProcesses; k++)
+			if (log.size(k) != eventsPerProcess)
+				throw new IllegalStateException("process " + k + ": " + log.size(k) + " events consumed");
+
+		System.out.printf("%d processes, %d events, %.1f ms, %.2f million events/s%n", numberOfProcesses, events,
+				nanos / 1e6, events * 1e3 / nanos);
+	}
+}
@@ -0,0 +1,175 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * - publishes several laps of events through small rings while the monitor
+ * side consumes them, and checks every record and its order.
+ * - checks that a producer waits on a full ring until records are consumed.
+ * - checks that a terminated ring is drained only once all its records are
+ * consumed, with the exact number of records in order.
+ *
+ * Producers and consumer use their own mapping of the file, as they would in
+ * separate JVMs.
+ */
+public class EventRingTest {
+
+	/**
+	 * checks that every process delivers localVariable 0, 1, 2, ... with
+	 * clock[k] = localVariable + 1 and clock[q] = processId for q != k
+	 */
+	private static class CheckingSink implements EventRing.EventSink {
+		final long[] received;
+		int errors;
+
+		CheckingSink(int numberOfProcesses) {
+			received = new long[numberOfProcesses];
+		}
+
+		@Override
+		public void onEvent(EventRing ring, int processId, int record) {
+			int expected = (int) received[processId]++;
+			if (ring.getLocalVariable(record) != expected)
+				errors++;
+			for (int q = 0; q < ring.getNumberOfProcesses(); q++)
+				if (ring.getClock(record, q) != (q == processId ? expected + 1 : processId))
+					errors++;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		boolean testResult = testWraparound() & testFullRing() & testDrain();
+
+		if (testResult)
+			System.out.println("Test succeeded!");
+		else
+			System.out.println("Test failed!");
+	}
+
+	private static boolean testWraparound() throws Exception {
+		System.out.println("Check several laps around the rings");
+
+		final int numberOfProcesses = 3;
+		final int capacity = 16;
+		final int numberOfEvents = 100 * capacity + 5;
+
+		File path = File.createTempFile("event-ring", ".bin");
+		try {
+			EventRing.create(path, numberOfProcesses, capacity).close();
+			Thread[] producers = startProducers(path, numberOfProcesses, numberOfEvents);
+
+			CheckingSink sink = new CheckingSink(numberOfProcesses);
+			// a ring that loses records is never drained
+			long deadline = System.nanoTime() + 30 * 1000000000L;
+			try (EventRing consumer = EventRing.open(path)) {
+				while (!isDrained(consumer) && System.nanoTime() < deadline)
+					consumer.consume(sink);
+			}
+
+			boolean passed = sink.errors == 0;
+			for (int k = 0; k < numberOfProcesses; k++) {
+				System.out.printf("process %d: %d of %d records%n", k, sink.received[k], numberOfEvents);
+				passed &= sink.received[k] == numberOfEvents;
+			}
+			System.out.printf("%d wrong values%n", sink.errors);
+			return passed;
+		} finally {
+			path.delete();
+		}
+	}
+
+	private static boolean testFullRing() throws Exception {
+		System.out.println("Check a producer on a full ring");
+
+		final int capacity = 8;
+		File path = File.createTempFile("event-ring", ".bin");
+		try {
+			EventRing.create(path, 1, capacity).close();
+			// one event more than fits
+			Thread[] producers = startProducers(path, 1, capacity + 1);
+
+			CheckingSink sink = new CheckingSink(1);
+			try (EventRing consumer = EventRing.open(path)) {
+				producers[0].join(500);
+				if (!producers[0].isAlive()) {
+					System.out.println("the producer did not wait");
+					return false;
+				}
+
+				int consumed = consumer.consume(sink);
+				producers[0].join(10000);
+				if (producers[0].isAlive()) {
+					System.out.println("the producer did not continue");
+					return false;
+				}
+				consumed += consumer.consume(sink);
+				return consumed == capacity + 1 && sink.errors == 0 && consumer.isDrained(0);
+			}
+		} finally {
+			path.delete();
+		}
+	}
+
+	private static boolean testDrain() throws Exception {
+		System.out.println("Check draining a terminated ring");
+
+		final int numberOfProcesses = 2;
+		final int numberOfEvents = 50;
+		File path = File.createTempFile("event-ring", ".bin");
+		try {
+			EventRing.create(path, numberOfProcesses, 64).close();
+			Thread[] producers = startProducers(path, numberOfProcesses, numberOfEvents);
+			for (Thread producer : producers)
+				producer.join();
+
+			CheckingSink sink = new CheckingSink(numberOfProcesses);
+			try (EventRing consumer = EventRing.open(path)) {
+				if (isDrained(consumer)) {
+					System.out.println("drained before consuming");
+					return false;
+				}
+				int consumed = consumer.consume(sink);
+				int consumedAgain = consumer.consume(sink);
+				System.out.printf("%d records consumed, %d after draining%n", consumed, consumedAgain);
+				return consumed == numberOfProcesses * numberOfEvents && consumedAgain == 0 && sink.errors == 0
+						&& isDrained(consumer);
+			}
+		} finally {
+			path.delete();
+		}
+	}
+
+	/**
+	 * one producer per process publishes numberOfEvents events, see
+	 * CheckingSink, and terminates
+	 */
+	private static Thread[] startProducers(File path, final int numberOfProcesses, final int numberOfEvents)
+			throws IOException {
+		Thread[] producers = new Thread[numberOfProcesses];
+		for (int k = 0; k < numberOfProcesses; k++) {
+			final int processId = k;
+			final EventRing ring = EventRing.open(path);
+			producers[k] = new Thread(() -> {
+				int[] clock = new int[numberOfProcesses];
+				for (int q = 0; q < numberOfProcesses; q++)
+					clock[q] = processId;
+				for (int e = 0; e < numberOfEvents; e++) {
+					clock[processId] = e + 1;
+					ring.publish(processId, e, clock);
+				}
+				ring.terminate(processId);
+			});
+			producers[k].setDaemon(true);
+			producers[k].start();
+		}
+		return producers;
+	}
+
+	private static boolean isDrained(EventRing consumer) {
+		boolean drained = true;
+		for (int k = 0; k < consumer.getNumberOfProcesses(); k++)
+			drained &= consumer.isDrained(k);
+		return drained;
+	}
+}
@@ -0,0 +1,426 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Explicit lattice engine. The lattice is traversed level by level from the
+ * initial state; a state is stored as one long (the message indices of all
+ * processes in mixed radix). All states of a level have the same index sum, so
+ * a level can only contain duplicates of itself and only the next level has to
+ * be hashed, never the whole lattice. With spilling enabled, a level that does
+ * not fit in memory goes to disk, see StateSet.
+ *
+ * With partial order reduction enabled, a state whose successors include an
+ * event of a process the predicate does not read (an invisible event) is
+ * expanded by that event only. In the lattice of consistent states an enabled
+ * event stays enabled until it is executed and commutes with every other
+ * enabled event, so {e} is a persistent set; since e does not change the
+ * predicate, every state reachable from s has a counterpart with the same
+ * local variables of process i and j reachable from s + e, and every path
+ * avoiding the predicate can be reordered to execute e first. Both verdicts
+ * therefore stay exact; the lattice is acyclic, so no cycle proviso is needed.
+ *
+ * In best first mode, possibly expands the state whose local variables are
+ * closest to satisfying the predicate first (Predicate.distance) and stops at
+ * the first witness. This search keeps all visited states in memory and is
+ * not checkpointed; definitely always searches exhaustively level by level.
+ *
+ * With a checkpoint file set, the verdicts and the frontier of the running
+ * check are written to disk between two levels, at most every interval and
+ * only while the time spent on checkpoints stays below a share of the search
+ * time. A new engine on the same run resumes from the file. The file is read
+ * by the first check, so a resumed frontier obeys setSpilling no matter in
+ * which order the two are called.
+ */
+public class ExplicitLattice implements LatticeEngine {
+
+	private final int numberOfProcesses;
+	private final List<List<Message>> processesMessages;
+
+	// state key = sum of processesMessagesCurrentIndex[k] * weights[k]
+	private final long[] weights;
+	private final long finalState;
+
+	private long statesVisited;
+
+	private boolean partialOrderReduction = false;
+	private boolean bestFirst = false;
+
+	private int maxStatesInMemory = Integer.MAX_VALUE;
+	private File spillDirectory;
+	private long statesSpilled;
+
+	private File checkpointFile;
+	// read from checkpointFile by the first check, see loadCheckpoint
+	private LatticeCheckpoint checkpoint;
+	private long checkpointIntervalNanos;
+	private double maxCheckpointOverhead = 0.05;
+	private long checkpointNanos;
+	private long searchNanos;
+	private long lastCheckpoint;
+
+	public ExplicitLattice(List<List<Message>> processesMessages) {
+		this.processesMessages = processesMessages;
+		this.numberOfProcesses = processesMessages.size();
+
+		weights = new long[numberOfProcesses];
+		long weight = 1;
+		long last = 0;
+		for (int k = 0; k < numberOfProcesses; k++) {
+			int size = processesMessages.get(k).size();
+			if (size == 0)
+				throw new IllegalArgumentException("process " + k + " has no initial state");
+			weights[k] = weight;
+			last += (size - 1) * weight;
+			if (weight > Long.MAX_VALUE / size)
+				throw new IllegalArgumentException("lattice too large to encode states in a long");
+			weight *= size;
+		}
+		finalState = last;
+	}
+
+	@Override
+	public boolean possibly(int predicateNo, int process_i_id, int process_j_id) {
+		return check(0, predicateNo, process_i_id, process_j_id);
+	}
+
+	@Override
+	public boolean definitely(int predicateNo, int process_i_id, int process_j_id) {
+		return check(1, predicateNo, process_i_id, process_j_id);
+	}
+
+	/**
+	 * @param bestFirst
+	 *            let possibly expand the most promising states first
+	 */
+	public void setBestFirst(boolean bestFirst) {
+		this.bestFirst = bestFirst;
+	}
+
+	/**
+	 * Checkpoint the search to file and resume from it, if it holds a
+	 * checkpoint of the same run. The file is read by the first check, which
+	 * throws UncheckedIOException if it cannot be read.
+	 *
+	 * @param file
+	 * @param intervalMillis
+	 *            minimal time between two checkpoints
+	 */
+	public void setCheckpoint(File file, long intervalMillis) {
+		checkpointFile = file;
+		checkpoint = null;
+		checkpointIntervalNanos = intervalMillis * 1000000L;
+	}
+
+	/**
+	 * keep at most maxStatesInMemory states of a level in memory, spill the
+	 * rest to sorted run files in directory
+	 *
+	 * @param directory
+	 *            null for the default temporary directory
+	 * @param maxStatesInMemory
+	 */
+	public void setSpilling(File directory, int maxStatesInMemory) {
+		this.spillDirectory = directory;
+		this.maxStatesInMemory = maxStatesInMemory;
+	}
+
+	/**
+	 * @return number of states of the last check that were kept in levels on
+	 *         disk
+	 */
+	public long getStatesSpilled() {
+		return statesSpilled;
+	}
+
+	/**
+	 * @param maxCheckpointOverhead
+	 *            skip checkpoints while their time exceeds this share of the
+	 *            search time, default 0.05
+	 */
+	public void setMaxCheckpointOverhead(double maxCheckpointOverhead) {
+		this.maxCheckpointOverhead = maxCheckpointOverhead;
+	}
+
+	/**
+	 * @return time spent writing checkpoints, in nanoseconds
+	 */
+	public long getCheckpointNanos() {
+		return checkpointNanos;
+	}
+
+	public void setPartialOrderReduction(boolean partialOrderReduction) {
+		this.partialOrderReduction = partialOrderReduction;
+	}
+
+	@Override
+	public long getLastCheckSize() {
+		return statesVisited;
+	}
+
+	/**
+	 * @param kind
+	 *            0 possibly, 1 definitely
+	 */
+	private boolean check(int kind, int predicateNo, int process_i_id, int process_j_id) {
+		long key = LatticeCheckpoint.key(kind, predicateNo, process_i_id, process_j_id);
+		loadCheckpoint();
+		if (checkpoint != null && checkpoint.getVerdict(key) != null) {
+			statesVisited = 0;
+			return checkpoint.getVerdict(key);
+		}
+
+		long start = System.nanoTime();
+		// definitely fails iff the final state is reachable on a path of
+		// states in which the predicate does not hold
+		boolean found = kind == 0 && bestFirst ? searchBestFirst(predicateNo, process_i_id, process_j_id)
+				: search(key, predicateNo, process_i_id, process_j_id, kind == 1);
+		boolean verdict = kind == 0 ? found : !found;
+		searchNanos += System.nanoTime() - start;
+
+		if (checkpoint != null) {
+			checkpoint.setVerdict(key, verdict);
+			if (checkpointNanos <= maxCheckpointOverhead * searchNanos)
+				writeCheckpoint();
+		}
+		return verdict;
+	}
+
+	/**
+	 * breadth first search over the consistent states.
+	 *
+	 * @param avoidPredicate
+	 *            false: search a state in which the predicate holds. true:
+	 *            search the final state, but do not enter states in which the
+	 *            predicate holds.
+	 * @return true if the target state was found
+	 */
+	private boolean search(long key, int predicateNo, int process_i_id, int process_j_id, boolean avoidPredicate) {
+		long start = System.nanoTime();
+		statesVisited = 0;
+		statesSpilled = 0;
+
+		int[] cut = new int[numberOfProcesses];
+		StateSet frontier = checkpoint != null ? checkpoint.getFrontier(key, partialOrderReduction) : null;
+		if (frontier != null) {
+			statesVisited = checkpoint.getStatesVisited();
+		} else {
+			frontier = newStateSet();
+			frontier.add(0L);
+			frontier.seal();
+		}
+
+		while (frontier.size() != 0) {
+			StateSet nextLevel = newStateSet();
+			StateSet.Cursor cursor = frontier.cursor();
+			boolean levelDone = false;
+
+			try {
+				while (cursor.hasNext()) {
+					long state = cursor.next();
+					statesVisited++;
+					decode(state, cut);
+
+					boolean predicate = evaluate(predicateNo, process_i_id, process_j_id, cut);
+					if (!avoidPredicate && predicate)
+						return true;
+					if (avoidPredicate) {
+						if (predicate)
+							continue;
+						if (state == finalState)
+							return true;
+					}
+
+					int invisible = partialOrderReduction ? findInvisibleEvent(cut, process_i_id, process_j_id) : -1;
+					if (invisible >= 0) {
+						nextLevel.add(state + weights[invisible]);
+						continue;
+					}
+
+					for (int k = 0; k < numberOfProcesses; k++)
+						if (isEnabled(cut, k))
+							nextLevel.add(state + weights[k]);
+				}
+				nextLevel.seal();
+				levelDone = true;
+			} finally {
+				cursor.close();
+				frontier.delete();
+				if (!levelDone)
+					nextLevel.delete();
+			}
+
+			frontier = nextLevel;
+			if (frontier.isSpilled())
+				statesSpilled += frontier.size();
+
+			if (checkpoint != null && isCheckpointDue(System.nanoTime() - start)) {
+				checkpoint.setRunning(key, partialOrderReduction, statesVisited, frontier);
+				writeCheckpoint();
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * greedy best first search for a state in which the predicate holds
+	 *
+	 * @return true if such a state was found
+	 */
+	private boolean searchBestFirst(int predicateNo, int process_i_id, int process_j_id) {
+		statesVisited = 0;
+		statesSpilled = 0;
+
+		int[] cut = new int[numberOfProcesses];
+		LongHashSet visited = new LongHashSet(1024);
+		LongMinHeap open = new LongMinHeap(1024);
+
+		visited.add(0L);
+		open.add(0L, priority(predicateNo, process_i_id, process_j_id, cut));
+
+		while (!open.isEmpty()) {
+			long state = open.poll();
+			statesVisited++;
+			decode(state, cut);
+
+			if (evaluate(predicateNo, process_i_id, process_j_id, cut))
+				return true;
+
+			int invisible = partialOrderReduction ? findInvisibleEvent(cut, process_i_id, process_j_id) : -1;
+			for (int k = 0; k < numberOfProcesses; k++) {
+				if (invisible >= 0 ? k != invisible : !isEnabled(cut, k))
+					continue;
+				long next = state + weights[k];
+				if (!visited.add(next))
+					continue;
+
+				cut[k]++;
+				open.add(next, priority(predicateNo, process_i_id, process_j_id, cut));
+				cut[k]--;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * read the checkpoint file once, with the spilling settings in place
+	 */
+	private void loadCheckpoint() {
+		if (checkpointFile == null || checkpoint != null)
+			return;
+
+		long fingerprint = LatticeCheckpoint.fingerprint(processesMessages);
+		try {
+			checkpoint = LatticeCheckpoint.read(checkpointFile, fingerprint, newStateSet());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (checkpoint == null)
+			checkpoint = new LatticeCheckpoint(fingerprint);
+		lastCheckpoint = System.nanoTime();
+	}
+
+	private StateSet newStateSet() {
+		return new StateSet(maxStatesInMemory, spillDirectory);
+	}
+
+	private boolean isCheckpointDue(long runningSearchNanos) {
+		long now = System.nanoTime();
+		return now - lastCheckpoint >= checkpointIntervalNanos
+				&& checkpointNanos <= maxCheckpointOverhead * (searchNanos + runningSearchNanos);
+	}
+
+	private void writeCheckpoint() {
+		long start = System.nanoTime();
+		try {
+			checkpoint.write(checkpointFile);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		lastCheckpoint = System.nanoTime();
+		checkpointNanos += lastCheckpoint - start;
+	}
+
+	/**
+	 * @return a process other than i and j whose next event is enabled, or -1
+	 */
+	private int findInvisibleEvent(int[] cut, int process_i_id, int process_j_id) {
+		for (int k = 0; k < numberOfProcesses; k++)
+			if (k != process_i_id && k != process_j_id && isEnabled(cut, k))
+				return k;
+		return -1;
+	}
+
+	boolean evaluate(int predicateNo, int process_i_id, int process_j_id, int[] cut) {
+		Message process_i_Message = processesMessages.get(process_i_id).get(cut[process_i_id]);
+		Message process_j_Message = processesMessages.get(process_j_id).get(cut[process_j_id]);
+		return Predicate.evaluate(predicateNo, process_i_Message, process_j_Message);
+	}
+
+	/**
+	 * best first order: the distance to the predicate, among states of equal
+	 * distance those that advanced process i and j further, then the deeper
+	 * ones. The distance only depends on the events of i and j, so without the
+	 * tie breaks the search would enumerate every interleaving of the other
+	 * processes before it moves i or j.
+	 */
+	private long priority(int predicateNo, int process_i_id, int process_j_id, int[] cut) {
+		Message process_i_Message = processesMessages.get(process_i_id).get(cut[process_i_id]);
+		Message process_j_Message = processesMessages.get(process_j_id).get(cut[process_j_id]);
+		long distance = Math.min(Predicate.distance(predicateNo, process_i_Message, process_j_Message), 0xFFFFF);
+
+		int depth = 0;
+		for (int k = 0; k < numberOfProcesses; k++)
+			depth += cut[k];
+		long progress = Math.min(cut[process_i_id] + cut[process_j_id], 0xFFFFF);
+		return (distance << 42) - (progress << 21) - Math.min(depth, 0xFFFFF);
+	}
+
+	/**
+	 * @return true if the next event of process k exists and the state stays
+	 *         consistent when it is added to cut
+	 */
+	boolean isEnabled(int[] cut, int k) {
+		List<Message> messages = processesMessages.get(k);
+		int next = cut[k] + 1;
+		if (next >= messages.size())
+			return false;
+
+		VectorClock nextClock = messages.get(next).getVectorClock();
+		for (int m = 0; m < numberOfProcesses; m++) {
+			if (m == k)
+				continue;
+			VectorClock other = processesMessages.get(m).get(cut[m]).getVectorClock();
+			if (!nextClock.checkConsistency(m, other))
+				return false;
+		}
+		return true;
+	}
+
+	long encode(int[] cut) {
+		long state = 0;
+		for (int k = 0; k < numberOfProcesses; k++)
+			state += cut[k] * weights[k];
+		return state;
+	}
+
+	void decode(long state, int[] cut) {
+		for (int k = numberOfProcesses - 1; k >= 0; k--) {
+			cut[k] = (int) (state / weights[k]);
+			state -= cut[k] * weights[k];
+		}
+	}
+
+	int getNumberOfProcesses() {
+		return numberOfProcesses;
+	}
+
+	long getFinalState() {
+		return finalState;
+	}
+}
@@ -0,0 +1,96 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.List;
+
+/**
+ * A consistent global state recorded by SnapshotCoordinator: the local
+ * variable of every process at the time it recorded, and the messages that
+ * were in transit on every channel. Only stable properties (properties that
+ * stay true once they hold) can be decided from a single snapshot.
+ */
+public class GlobalSnapshot {
+
+	private final int epoch;
+	private final int[] localVariables;
+	private final int[] events;
+	private final boolean[] terminated;
+	// channelStates[from][to], empty for from == to
+	private final List<Message>[][] channelStates;
+
+	GlobalSnapshot(int epoch, int[] localVariables, int[] events, boolean[] terminated,
+			List<Message>[][] channelStates) {
+		this.epoch = epoch;
+		this.localVariables = localVariables;
+		this.events = events;
+		this.terminated = terminated;
+		this.channelStates = channelStates;
+	}
+
+	/**
+	 * @return number of the snapshot, counting from 0
+	 */
+	public int getEpoch() {
+		return epoch;
+	}
+
+	public int getNumberOfProcesses() {
+		return localVariables.length;
+	}
+
+	public int getLocalVariable(int processId) {
+		return localVariables[processId];
+	}
+
+	/**
+	 * @return index of the latest event of process (processId) in the
+	 *         Monitor's queue when it recorded, so the snapshot can be mapped
+	 *         to a state of the lattice
+	 */
+	public int getEvent(int processId) {
+		return events[processId];
+	}
+
+	/**
+	 * @return true if process (processId) had terminated when it recorded
+	 */
+	public boolean isTerminated(int processId) {
+		return terminated[processId];
+	}
+
+	/**
+	 * @return the messages sent by process (from) before it recorded and
+	 *         received by process (to) after it recorded
+	 */
+	public List<Message> getChannelState(int from, int to) {
+		return channelStates[from][to];
+	}
+
+	/**
+	 * @return number of messages in transit on all channels
+	 */
+	public int getMessagesInTransit() {
+		int count = 0;
+		for (List<Message>[] channels : channelStates)
+			for (List<Message> channel : channels)
+				count += channel.size();
+		return count;
+	}
+
+	public long sumOfLocalVariables() {
+		long sum = 0;
+		for (int localVariable : localVariables)
+			sum += localVariable;
+		return sum;
+	}
+
+	/**
+	 * @return true if the computation terminated: all processes terminated and
+	 *         no message is in transit
+	 */
+	public boolean isComputationTerminated() {
+		for (boolean processTerminated : terminated)
+			if (!processTerminated)
+				return false;
+		return getMessagesInTransit() == 0;
+	}
+}
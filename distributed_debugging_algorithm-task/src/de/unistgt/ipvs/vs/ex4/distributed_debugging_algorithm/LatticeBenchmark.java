@@ -0,0 +1,56 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.List;
+
+/**
+ * Compares time and size of the explicit lattice engine (plain, with partial
+ * order reduction and with best first search for possibly) and the symbolic
+ * lattice engine on random runs of growing process count.
+ */
+public class LatticeBenchmark {
+
+	public static void main(String[] args) {
+		int maxProcesses = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+		int eventsPerProcess = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+		System.out.printf("%-10s %-8s %-10s %14s %14s %12s %12s%n", "processes", "events", "engine",
+				"possibly [ms]", "definitely [ms]", "size", "result");
+
+		for (int n = 2; n <= maxProcesses; n++) {
+			List<List<Message>> processesMessages = new TraceGenerator(n).generate(n, n * eventsPerProcess);
+
+			run(n, eventsPerProcess, "explicit", new ExplicitLattice(processesMessages));
+
+			ExplicitLattice reduced = new ExplicitLattice(processesMessages);
+			reduced.setPartialOrderReduction(true);
+			run(n, eventsPerProcess, "por", reduced);
+
+			ExplicitLattice bestFirst = new ExplicitLattice(processesMessages);
+			bestFirst.setBestFirst(true);
+			run(n, eventsPerProcess, "best-first", bestFirst);
+
+			long start = System.nanoTime();
+			SymbolicLattice symbolic = new SymbolicLattice(processesMessages);
+			double setup = (System.nanoTime() - start) / 1e6;
+			System.out.printf("%-10d %-8d %-10s %14.2f %14s %12d %12s%n", n, n * eventsPerProcess, "bdd-setup",
+					setup, "", symbolic.getNodeCount(), "");
+			run(n, eventsPerProcess, "symbolic", symbolic);
+		}
+	}
+
+	private static void run(int n, int eventsPerProcess, String name, LatticeEngine engine) {
+		long start = System.nanoTime();
+		boolean possibly = engine.possibly(1, 0, 1);
+		long possiblySize = engine.getLastCheckSize();
+		double possiblyMillis = (System.nanoTime() - start) / 1e6;
+
+		start = System.nanoTime();
+		boolean definitely = engine.definitely(1, 0, 1);
+		long definitelySize = engine.getLastCheckSize();
+		double definitelyMillis = (System.nanoTime() - start) / 1e6;
+
+		System.out.printf("%-10d %-8d %-10s %14.2f %14.2f %12d %12s%n", n, n * eventsPerProcess, name,
+				possiblyMillis, definitelyMillis, Math.max(possiblySize, definitelySize),
+				possibly + "/" + definitely);
+	}
+}
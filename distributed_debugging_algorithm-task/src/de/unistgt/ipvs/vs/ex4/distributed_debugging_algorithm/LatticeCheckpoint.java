@@ -0,0 +1,193 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent state of an ExplicitLattice: the verdicts of finished checks and
+ * the frontier of the running one. Since the search runs level by level and
+ * levels never share states, the frontier is the complete visited set that is
+ * still needed, nothing else has to be stored to resume.
+ *
+ * Binary format (DataOutput, big endian):
+ *
+ * <pre>
+ * int magic | long trace fingerprint | int verdicts | verdicts * (long key | boolean)
+ * boolean running | [long key | boolean reduction | long statesVisited | long size | size * varlong delta]
+ * </pre>
+ *
+ * The frontier is stored sorted, as unsigned LEB128 deltas.
+ */
+class LatticeCheckpoint {
+
+	private static final int MAGIC = 0x4c434b32; // LCK2
+
+	// bits of the fields of key()
+	private static final int PREDICATE_BITS = 16;
+	private static final int PROCESS_BITS = 23;
+
+	private final long fingerprint;
+
+	// key -> verdict, see key()
+	private final Map<Long, Boolean> verdicts = new HashMap<>();
+
+	// the running check, runningKey < 0 if there is none
+	private long runningKey = -1;
+	private boolean runningReduction;
+	private long runningStatesVisited;
+	private StateSet runningFrontier;
+
+	LatticeCheckpoint(long fingerprint) {
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * @return a key for the check, kind 0 = possibly, 1 = definitely
+	 * @throws IllegalArgumentException
+	 *             if an id does not fit into its field
+	 */
+	static long key(int kind, int predicateNo, int process_i_id, int process_j_id) {
+		if (kind >>> 1 != 0 || predicateNo >>> PREDICATE_BITS != 0 || process_i_id >>> PROCESS_BITS != 0
+				|| process_j_id >>> PROCESS_BITS != 0)
+			throw new IllegalArgumentException("check " + kind + "/" + predicateNo + "/" + process_i_id + "/"
+					+ process_j_id + " out of the range of a checkpoint key");
+		return (((long) kind << PREDICATE_BITS | predicateNo) << PROCESS_BITS | process_i_id) << PROCESS_BITS
+				| process_j_id;
+	}
+
+	/**
+	 * @return a hash over all events of a run, a checkpoint only resumes on the
+	 *         run it was written for
+	 */
+	static long fingerprint(List<List<Message>> processesMessages) {
+		long hash = processesMessages.size();
+		for (List<Message> messages : processesMessages) {
+			hash = hash * 31 + messages.size();
+			for (Message message : messages) {
+				hash = hash * 31 + message.getLocalVariable();
+				hash = hash * 31 + Arrays.hashCode(message.getVectorClock().get());
+			}
+		}
+		return hash;
+	}
+
+	Boolean getVerdict(long key) {
+		return verdicts.get(key);
+	}
+
+	void setVerdict(long key, boolean verdict) {
+		verdicts.put(key, verdict);
+		if (runningKey == key)
+			clearRunning();
+	}
+
+	void setRunning(long key, boolean reduction, long statesVisited, StateSet frontier) {
+		runningKey = key;
+		runningReduction = reduction;
+		runningStatesVisited = statesVisited;
+		runningFrontier = frontier;
+	}
+
+	void clearRunning() {
+		runningKey = -1;
+		runningFrontier = null;
+	}
+
+	/**
+	 * @return the stored frontier if it belongs to this check, else null
+	 */
+	StateSet getFrontier(long key, boolean reduction) {
+		return runningKey == key && runningReduction == reduction ? runningFrontier : null;
+	}
+
+	long getStatesVisited() {
+		return runningStatesVisited;
+	}
+
+	/**
+	 * write to a temporary file and rename it, so a crash never leaves a
+	 * broken checkpoint behind
+	 */
+	void write(File file) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024))) {
+			out.writeInt(MAGIC);
+			out.writeLong(fingerprint);
+			out.writeInt(verdicts.size());
+			for (Map.Entry<Long, Boolean> verdict : verdicts.entrySet()) {
+				out.writeLong(verdict.getKey());
+				out.writeBoolean(verdict.getValue());
+			}
+
+			out.writeBoolean(runningKey >= 0);
+			if (runningKey >= 0) {
+				out.writeLong(runningKey);
+				out.writeBoolean(runningReduction);
+				out.writeLong(runningStatesVisited);
+
+				out.writeLong(runningFrontier.size());
+				StateSet.Cursor cursor = runningFrontier.cursor();
+				long previous = 0;
+				while (cursor.hasNext()) {
+					long state = cursor.next();
+					StateSet.writeVarLong(out, state - previous);
+					previous = state;
+				}
+			}
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @param frontier
+	 *            empty set that receives the frontier of the running check
+	 * @return the checkpoint in file, or null if there is none for this run
+	 */
+	static LatticeCheckpoint read(File file, long fingerprint, StateSet frontier) throws IOException {
+		if (!file.exists())
+			return null;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+			if (in.readInt() != MAGIC)
+				throw new IOException(file + " is not a lattice checkpoint");
+			if (in.readLong() != fingerprint)
+				return null;
+
+			LatticeCheckpoint checkpoint = new LatticeCheckpoint(fingerprint);
+			int count = in.readInt();
+			for (int v = 0; v < count; v++) {
+				long key = in.readLong();
+				checkpoint.verdicts.put(key, in.readBoolean());
+			}
+
+			if (in.readBoolean()) {
+				long key = in.readLong();
+				boolean reduction = in.readBoolean();
+				long statesVisited = in.readLong();
+				long size = in.readLong();
+				long previous = 0;
+				for (long s = 0; s < size; s++) {
+					previous += StateSet.readVarLong(in);
+					frontier.add(previous);
+				}
+				frontier.seal();
+				checkpoint.setRunning(key, reduction, statesVisited, frontier);
+			}
+			return checkpoint;
+		}
+	}
+}
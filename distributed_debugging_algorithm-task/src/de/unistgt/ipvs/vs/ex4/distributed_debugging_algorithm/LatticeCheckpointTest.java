@@ -0,0 +1,105 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * - interrupts a definitely check of ExplicitLattice half way, resumes it on a
+ * new engine from the checkpoint file and compares verdict and number of
+ * visited states with an uninterrupted check. The resumed engine has to
+ * evaluate fewer states than a fresh one.
+ * - resumes with setSpilling called before and after setCheckpoint.
+ * - checks that checkpoint keys of large process ids do not collide.
+ */
+public class LatticeCheckpointTest {
+
+	/**
+	 * evaluates the predicate like ExplicitLattice, but crashes after
+	 * crashAfter evaluations
+	 */
+	private static class CrashingLattice extends ExplicitLattice {
+		private final long crashAfter;
+		long evaluations;
+
+		CrashingLattice(List<List<Message>> processesMessages, long crashAfter) {
+			super(processesMessages);
+			this.crashAfter = crashAfter;
+		}
+
+		@Override
+		boolean evaluate(int predicateNo, int process_i_id, int process_j_id, int[] cut) {
+			if (++evaluations > crashAfter)
+				throw new IllegalStateException("crash");
+			return super.evaluate(predicateNo, process_i_id, process_j_id, cut);
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		boolean testResult = testResume(false) & testResume(true) & testKeys();
+
+		if (testResult)
+			System.out.println("Test succeeded!");
+		else
+			System.out.println("Test failed!");
+	}
+
+	/**
+	 * @param spillingFirst
+	 *            call setSpilling before setCheckpoint on the resumed engine
+	 */
+	private static boolean testResume(boolean spillingFirst) throws IOException {
+		System.out.println("Check resuming an interrupted search, spilling set "
+				+ (spillingFirst ? "before" : "after") + " the checkpoint");
+
+		List<List<Message>> processesMessages = new TraceGenerator(7).generate(5, 40);
+		// definitely searches level by level, about 8000 states on this run
+		ExplicitLattice reference = new ExplicitLattice(processesMessages);
+		boolean expected = reference.definitely(2, 0, 1);
+		long statesVisited = reference.getLastCheckSize();
+
+		File file = File.createTempFile("lattice", ".checkpoint");
+		file.delete();
+		try {
+			CrashingLattice interrupted = new CrashingLattice(processesMessages, statesVisited / 2);
+			interrupted.setCheckpoint(file, 0);
+			interrupted.setMaxCheckpointOverhead(Double.MAX_VALUE);
+			try {
+				interrupted.definitely(2, 0, 1);
+				System.out.println("the search was not interrupted");
+				return false;
+			} catch (IllegalStateException e) {
+				// the crash
+			}
+
+			CrashingLattice resumed = new CrashingLattice(processesMessages, Long.MAX_VALUE);
+			if (spillingFirst)
+				resumed.setSpilling(null, 16);
+			resumed.setCheckpoint(file, 0);
+			if (!spillingFirst)
+				resumed.setSpilling(null, 16);
+
+			boolean verdict = resumed.definitely(2, 0, 1);
+			System.out.printf("%d states, %d evaluated after resuming%n", resumed.getLastCheckSize(),
+					resumed.evaluations);
+			return verdict == expected && resumed.getLastCheckSize() == statesVisited
+					&& resumed.evaluations < statesVisited;
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static boolean testKeys() {
+		System.out.println("Check checkpoint keys");
+
+		if (LatticeCheckpoint.key(0, 0, 256, 1) == LatticeCheckpoint.key(0, 1, 0, 1)
+				|| LatticeCheckpoint.key(1, 3, 0, 1000) == LatticeCheckpoint.key(1, 3, 3, 1000 - 256 * 3))
+			return false;
+		try {
+			LatticeCheckpoint.key(0, 0, -1, 1);
+			return false;
+		} catch (IllegalArgumentException e) {
+			return true;
+		}
+	}
+}
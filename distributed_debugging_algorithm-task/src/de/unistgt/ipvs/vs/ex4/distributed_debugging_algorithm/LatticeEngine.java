@@ -0,0 +1,26 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+/**
+ * Checks predicates on the lattice of consistent global states of a finished
+ * run. As in Monitor.checkPredicate, a predicate is given by its number (see
+ * Predicate.evaluate) and the two processes whose local variables it reads.
+ */
+public interface LatticeEngine {
+
+	/**
+	 * @return true if the predicate holds in at least one consistent state
+	 */
+	boolean possibly(int predicateNo, int process_i_id, int process_j_id);
+
+	/**
+	 * @return true if every path from the initial to the final state passes a
+	 *         state in which the predicate holds
+	 */
+	boolean definitely(int predicateNo, int process_i_id, int process_j_id);
+
+	/**
+	 * @return a size measure of the last check, states visited for an
+	 *         explicit engine and BDD nodes allocated for a symbolic one
+	 */
+	long getLastCheckSize();
+}
@@ -0,0 +1,90 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash set of non-negative longs (encoded states), without
+ * boxing. -1 marks an empty slot.
+ */
+class LongHashSet {
+
+	private static final long EMPTY = -1L;
+
+	private long[] slots;
+	private int size;
+
+	LongHashSet(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2)
+			capacity <<= 1;
+		slots = new long[capacity];
+		Arrays.fill(slots, EMPTY);
+	}
+
+	/**
+	 * @return true if value was not in the set
+	 */
+	boolean add(long value) {
+		if (2 * (size + 1) > slots.length)
+			rehash(slots.length * 2);
+
+		int mask = slots.length - 1;
+		int slot = hash(value) & mask;
+		while (slots[slot] != EMPTY) {
+			if (slots[slot] == value)
+				return false;
+			slot = (slot + 1) & mask;
+		}
+		slots[slot] = value;
+		size++;
+		return true;
+	}
+
+	boolean contains(long value) {
+		int mask = slots.length - 1;
+		int slot = hash(value) & mask;
+		while (slots[slot] != EMPTY) {
+			if (slots[slot] == value)
+				return true;
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void clear() {
+		Arrays.fill(slots, EMPTY);
+		size = 0;
+	}
+
+	/**
+	 * @return the values in ascending order
+	 */
+	long[] toSortedArray() {
+		long[] values = new long[size];
+		int n = 0;
+		for (long value : slots)
+			if (value != EMPTY)
+				values[n++] = value;
+		Arrays.sort(values);
+		return values;
+	}
+
+	private void rehash(int capacity) {
+		long[] old = slots;
+		slots = new long[capacity];
+		Arrays.fill(slots, EMPTY);
+		size = 0;
+		for (long value : old)
+			if (value != EMPTY)
+				add(value);
+	}
+
+	private static int hash(long value) {
+		long h = value * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
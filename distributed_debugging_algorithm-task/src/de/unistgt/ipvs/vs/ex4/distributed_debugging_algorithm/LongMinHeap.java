@@ -0,0 +1,72 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of (priority, state) pairs on primitive arrays. Equal
+ * priorities leave in no particular order.
+ */
+class LongMinHeap {
+
+	private long[] priorities;
+	private long[] states;
+	private int size;
+
+	LongMinHeap(int initialCapacity) {
+		priorities = new long[Math.max(initialCapacity, 16)];
+		states = new long[priorities.length];
+	}
+
+	void add(long state, long priority) {
+		if (size == states.length) {
+			priorities = Arrays.copyOf(priorities, 2 * size);
+			states = Arrays.copyOf(states, 2 * size);
+		}
+
+		int i = size++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (priorities[parent] <= priority)
+				break;
+			priorities[i] = priorities[parent];
+			states[i] = states[parent];
+			i = parent;
+		}
+		priorities[i] = priority;
+		states[i] = state;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * remove the state with the smallest priority
+	 */
+	long poll() {
+		long result = states[0];
+		size--;
+		long priority = priorities[size];
+		long state = states[size];
+
+		int i = 0;
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && priorities[child + 1] < priorities[child])
+				child++;
+			if (priority <= priorities[child])
+				break;
+			priorities[i] = priorities[child];
+			states[i] = states[child];
+			i = child;
+		}
+		priorities[i] = priority;
+		states[i] = state;
+		return result;
+	}
+}
@@ -74,8 +74,39 @@ public class Monitor implements Runnable {
 	private boolean[] possiblyTruePredicatesIndex;
 	private boolean[] definitelyTruePredicatesIndex;
 
+	// columnar copy of processesMessages, built by the first predicate check
+	private EventIndex eventIndex;
+
+	// Called once when the last process terminated, see MonitorService
+	private Runnable terminationListener;
+
+	// set if snapshots are taken while the processes run
+	private SnapshotCoordinator snapshotCoordinator;
+
+	// time each process spent waiting in receive, see TraceAnalytics
+	private final long[] receiveWaitNanos;
+
+	// clocks the processes create, see AbstractProcess.createVectorClock. The
+	// queues are expanded whatever the mode, processes behind a TransportHub
+	// choose their mode themselves
+	private final VectorClock.Mode clockMode;
+	private boolean causalityReconstructed;
+
 	public Monitor(int numberOfProcesses) {
+		this(numberOfProcesses, VectorClock.Mode.VECTOR);
+	}
+
+	/**
+	 * @param clockMode
+	 *            clocks of the processes of this monitor. DIRECT_DEPENDENCY
+	 *            keeps the clocks on events and messages at a fixed size; the
+	 *            vector clocks are rebuilt when the analysis starts, in
+	 *            either mode
+	 */
+	public Monitor(int numberOfProcesses, VectorClock.Mode clockMode) {
 		this.numberOfProcesses = numberOfProcesses;
+		this.clockMode = clockMode;
+		receiveWaitNanos = new long[numberOfProcesses];
 
 		runningProcesses = new AtomicInteger();
 		runningProcesses.set(numberOfProcesses);
@@ -110,6 +141,24 @@ public class Monitor implements Runnable {
 		}
 	}
 
+	/**
+	 * add time process (processId) was blocked in receive
+	 *
+	 * @param processId
+	 * @param nanos
+	 */
+	public void addReceiveWaitTime(int processId, long nanos) {
+		synchronized (receiveWaitNanos) {
+			receiveWaitNanos[processId] += nanos;
+		}
+	}
+
+	public long getReceiveWaitNanos(int processId) {
+		synchronized (receiveWaitNanos) {
+			return receiveWaitNanos[processId];
+		}
+	}
+
 	/**
 	 * Whenever a process terminates, it notifies the Monitor. Monitor only
 	 * starts to build lattice and check predicates when all processes terminate
@@ -117,7 +166,89 @@ public class Monitor implements Runnable {
 	 * @param processId
 	 */
 	public void processTerminated(int processId) {
-		runningProcesses.decrementAndGet();
+		if (snapshotCoordinator != null)
+			snapshotCoordinator.processTerminated(processId);
+
+		if (runningProcesses.decrementAndGet() == 0) {
+			Runnable listener;
+			synchronized (this) {
+				listener = terminationListener;
+				terminationListener = null;
+			}
+			if (listener != null)
+				listener.run();
+		}
+	}
+
+	/**
+	 * Register a callback that fires once all processes terminated. If they
+	 * already did, the callback runs immediately in the calling thread.
+	 *
+	 * @param listener
+	 */
+	void setTerminationListener(Runnable listener) {
+		synchronized (this) {
+			if (runningProcesses.get() != 0) {
+				terminationListener = listener;
+				return;
+			}
+		}
+		listener.run();
+	}
+
+	void setSnapshotCoordinator(SnapshotCoordinator snapshotCoordinator) {
+		this.snapshotCoordinator = snapshotCoordinator;
+	}
+
+	/**
+	 * @return number of events process (processId) reported so far
+	 */
+	int getNumberOfEvents(int processId) {
+		synchronized (processesMessages) {
+			return processesMessages.get(processId).size();
+		}
+	}
+
+	boolean allProcessesTerminated() {
+		return runningProcesses.get() == 0;
+	}
+
+	/**
+	 * @return the event queues Q1, Q2, ..., Qn. Only read them after all
+	 *         processes terminated.
+	 */
+	List<List<Message>> getProcessesMessages() {
+		reconstructCausality();
+		return processesMessages;
+	}
+
+	public VectorClock.Mode getClockMode() {
+		return clockMode;
+	}
+
+	/**
+	 * @return the index of the event queues, built on first use so that
+	 *         buildLattice can be called without analyzePredicate
+	 */
+	private EventIndex getEventIndex() {
+		reconstructCausality();
+		if (eventIndex == null)
+			eventIndex = new EventIndex(processesMessages);
+		return eventIndex;
+	}
+
+	/**
+	 * expand direct dependency clocks to vector clocks, once. Runs in VECTOR
+	 * mode as well: remote processes may report direct dependency clocks to a
+	 * VECTOR monitor, and expanded clocks are left as they are.
+	 */
+	private void reconstructCausality() {
+		synchronized (processesMessages) {
+			if (causalityReconstructed)
+				return;
+			CausalityReconstructor.reconstruct(processesMessages);
+			causalityReconstructed = true;
+		}
 	}
 
 	public boolean[] getPossiblyTruePredicatesIndex() {
@@ -138,24 +269,36 @@ public class Monitor implements Runnable {
 				e.printStackTrace();
 			}
 
+		for (int predicateNo = 0; predicateNo < getNumberOfCheckedPredicates(); predicateNo++)
+			analyzePredicate(predicateNo);
+	}
+
+	/**
+	 * number of predicates run() checks: predicate3 needs the third process
+	 */
+	int getNumberOfCheckedPredicates() {
+		return numberOfProcesses > 2 ? numberOfPredicates : 3;
+	}
+
+	/**
+	 * Build the lattice and check a single predicate; buildLattice checks only
+	 * predicate (predicateNo). The predicates are independent of each other,
+	 * so a scheduler may interleave the calls of several monitors as long as
+	 * the calls of one monitor are not concurrent.
+	 *
+	 * @param predicateNo
+	 */
+	void analyzePredicate(int predicateNo) {
 		// create initial state (S00)
 		State initialState = new State(numberOfProcesses);
 
-		// check predicates for part (b)
-		for (int predicateNo = 0; predicateNo < 3; predicateNo++) {
-			states.add(initialState); // add the initial state to states list
+		// predicate0..2 are checked for part (b), predicate3 for part (c)
+		states.add(initialState); // add the initial state to states list
+		if (predicateNo < 3)
 			buildLattice(predicateNo, 0, 1);
-			states.clear();
-
-		}
-
-		if (numberOfProcesses > 2) {
-			int predicateNo = 3;
-			states.add(initialState); // add the initial state to states list
+		else
 			buildLattice(predicateNo, 0, 2);
-			states.clear();
-		}
-
+		states.clear();
 	}
 
 	public void buildLattice(int predicateNo, int process_i_id, int process_j_id) {
@@ -170,6 +313,9 @@ public class Monitor implements Runnable {
 		 * process_j_id are described in checkPredicate function.
 		 */
 
+		// the consistency checks below need vector clocks
+		reconstructCausality();
+
 		for (int iIndex = 0; iIndex < processesMessages.get(process_i_id).size(); iIndex++) {
 			for (int jIndex = 0; jIndex < processesMessages.get(process_j_id).size(); jIndex++) {
 				int[] messageIds = new int[numberOfProcesses];
@@ -190,11 +336,7 @@ public class Monitor implements Runnable {
 
 
 
-		checkPredicate(0, process_i_id, process_j_id);
-		//checkPredicate(0, process_j_id, process_i_id);
-		checkPredicate(1, process_i_id, process_j_id);
-		checkPredicate(2, process_i_id, process_j_id);
-		System.out.println("check");
+		checkPredicate(predicateNo, process_i_id, process_j_id);
 
 	}
 
@@ -234,7 +376,6 @@ public class Monitor implements Runnable {
 
 
 
-			System.out.println("test");
 		}
 
 		return reachStates;
@@ -270,66 +411,22 @@ public class Monitor implements Runnable {
 		 * case 1: ... }
 		 */
 
-		LinkedList<State> tempStates = new LinkedList<State>();
-		tempStates.add(states.getFirst());
-		
-		int L = 0;
-		
-		//possibly check
-		whilLeabel:
-		while(true){
-			for (State tempStat : tempStates) {
-				int msgI = tempStat.getProcessesMessagesCurrentIndex()[process_i_Id];
-				int msgJ = tempStat.getProcessesMessagesCurrentIndex()[process_j_id];
-
-				Message newestMessageI = processesMessages.get(process_i_Id).get(msgI);
-				Message newestMessageJ = processesMessages.get(process_j_id).get(msgJ);
-
-				boolean predicate = false;
-
-				switch (predicateNo) {
-				case 0:
-					predicate = Predicate.predicate0(newestMessageI, newestMessageJ);
-					break;
-				case 1:
-					predicate = Predicate.predicate1(newestMessageI, newestMessageJ);
-					break;
-				case 2:
-					predicate = Predicate.predicate2(newestMessageI, newestMessageJ);
-					break;
-				case 3:
-					predicate = Predicate.predicate3(newestMessageI, newestMessageJ);
-					break;
-				}
-
-				if(predicate){
-					possiblyTruePredicatesIndex[predicateNo] = true;
-					break whilLeabel;
-				}
-			}
-			LinkedList<State> reachableList = new LinkedList<State>();
+		//possibly check: look up the event pairs that satisfy the predicate
+		// instead of walking the lattice, see EventIndex
+		if (getEventIndex().possibly(predicateNo, process_i_Id, process_j_id))
+			possiblyTruePredicatesIndex[predicateNo] = true;
 
-			L++;
-
-			for (State state3 : tempStates) {
-				reachableList.addAll(findReachableStates(state3));	// to optimize remove duplicates			
-			}
-
-			tempStates = reachableList;
-
-			if(tempStates.size() == 0){
-				break whilLeabel;
-			}
-
-		}
-		
-		
-		
 		//definetly true check
+		// on the states list, which holds the pairs of events of process i and
+		// j only, while EventIndex answers possibly over full cuts. Both give
+		// the verdict of the full lattice: the predicate reads only x_i and
+		// x_j, every pairwise consistent pair is the projection of a
+		// consistent cut, and every path through the pairs lifts to a path
+		// through full cuts. ScalingTest.compareMonitor checks this.
 		definitelyTruePredicatesIndex[predicateNo] = true;
 		
 		
-		tempStates.clear();
+		LinkedList<State> tempStates = new LinkedList<State>();
 		
 		int msgI = states.getFirst().getProcessesMessagesCurrentIndex()[process_i_Id];
 		int msgJ = states.getFirst().getProcessesMessagesCurrentIndex()[process_j_id];
@@ -337,22 +434,7 @@ public class Monitor implements Runnable {
 		Message newestMessageI = processesMessages.get(process_i_Id).get(msgI);
 		Message newestMessageJ = processesMessages.get(process_j_id).get(msgJ);
 
-		boolean predicate = false;
-
-		switch (predicateNo) {
-		case 0:
-			predicate = Predicate.predicate0(newestMessageI, newestMessageJ);
-			break;
-		case 1:
-			predicate = Predicate.predicate1(newestMessageI, newestMessageJ);
-			break;
-		case 2:
-			predicate = Predicate.predicate2(newestMessageI, newestMessageJ);
-			break;
-		case 3:
-			predicate = Predicate.predicate3(newestMessageI, newestMessageJ);
-			break;
-		}
+		boolean predicate = Predicate.evaluate(predicateNo, newestMessageI, newestMessageJ);
 		
 		if(!predicate) tempStates.add(states.getFirst());
 		
@@ -387,22 +469,7 @@ public class Monitor implements Runnable {
 				newestMessageI = processesMessages.get(process_i_Id).get(msgI);
 				newestMessageJ = processesMessages.get(process_j_id).get(msgJ);
 
-				predicate = false;
-
-				switch (predicateNo) {
-				case 0:
-					predicate = Predicate.predicate0(newestMessageI, newestMessageJ);
-					break;
-				case 1:
-					predicate = Predicate.predicate1(newestMessageI, newestMessageJ);
-					break;
-				case 2:
-					predicate = Predicate.predicate2(newestMessageI, newestMessageJ);
-					break;
-				case 3:
-					predicate = Predicate.predicate3(newestMessageI, newestMessageJ);
-					break;
-				}
+				predicate = Predicate.evaluate(predicateNo, newestMessageI, newestMessageJ);
 
 				if(predicate){
 					tempStates.remove(tempStat);
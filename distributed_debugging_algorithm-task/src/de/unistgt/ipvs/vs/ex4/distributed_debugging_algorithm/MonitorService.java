@@ -0,0 +1,117 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many independent monitoring sessions. Each session owns its own
+ * Monitor (event logs, states and predicate results), but no session owns a
+ * thread: the lattice analysis of all sessions runs on one bounded worker pool.
+ *
+ * A session is scheduled only after all of its processes terminated, so no
+ * worker ever waits for a running session. The analysis of a session is split
+ * into one task per predicate and the next task of a session is queued behind
+ * the tasks of all other ready sessions (round robin), so a session with a
+ * huge trace cannot starve the others. A task checks one predicate, so a
+ * session takes at most one predicate check per turn.
+ *
+ * A session whose analysis throws ends as FAILED. Sessions whose processes
+ * terminate after shutdown() are cancelled, not analyzed.
+ */
+public class MonitorService {
+
+	private final ExecutorService workers;
+	private final Map<Integer, MonitorSession> sessions = new ConcurrentHashMap<>();
+	private final AtomicInteger nextSessionId = new AtomicInteger();
+	private volatile boolean shutdown;
+
+	public MonitorService(int numberOfWorkers) {
+		if (numberOfWorkers < 1)
+			throw new IllegalArgumentException("numberOfWorkers must be positive");
+
+		final AtomicInteger workerNo = new AtomicInteger();
+		ThreadFactory threadFactory = new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "monitor-worker-" + workerNo.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+
+		// the FIFO queue gives the round robin order between sessions
+		workers = new ThreadPoolExecutor(numberOfWorkers, numberOfWorkers, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), threadFactory);
+	}
+
+	/**
+	 * open a new session. The processes of the session report to
+	 * session.getMonitor(); the analysis starts by itself once all of them
+	 * terminated.
+	 *
+	 * @param numberOfProcesses
+	 * @return the new session
+	 * @throws IllegalStateException
+	 *             after shutdown()
+	 */
+	public MonitorSession openSession(int numberOfProcesses) {
+		if (shutdown)
+			throw new IllegalStateException("service is shut down");
+
+		int sessionId = nextSessionId.getAndIncrement();
+		MonitorSession session = new MonitorSession(this, sessionId, new Monitor(numberOfProcesses));
+		sessions.put(sessionId, session);
+		session.getMonitor().setTerminationListener(session::processesTerminated);
+		return session;
+	}
+
+	public MonitorSession getSession(int sessionId) {
+		return sessions.get(sessionId);
+	}
+
+	/**
+	 * @return number of sessions that are neither finished nor cancelled
+	 */
+	public int getActiveSessions() {
+		return sessions.size();
+	}
+
+	/**
+	 * cancel all sessions and stop the workers
+	 */
+	public void shutdown() {
+		shutdown = true;
+		for (MonitorSession session : sessions.values())
+			session.cancel();
+		workers.shutdownNow();
+	}
+
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return workers.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * @return false if the service is shut down and the step is dropped
+	 */
+	boolean schedule(Runnable step) {
+		if (shutdown)
+			return false;
+		try {
+			workers.execute(step);
+			return true;
+		} catch (RejectedExecutionException e) {
+			return false;
+		}
+	}
+
+	void sessionClosed(MonitorSession session) {
+		sessions.remove(session.getSessionId());
+	}
+}
@@ -0,0 +1,101 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * - runs several sessions of part (b) of DebugTest at the same time on a
+ * service with fewer workers than sessions, next to a session whose analysis
+ * fails.
+ * - checks that a session whose processes terminate after shutdown is
+ * cancelled.
+ */
+public class MonitorServiceTest {
+
+	private static final int NUMBER_OF_SESSIONS = 6;
+
+	public static void main(String[] args) throws InterruptedException {
+		boolean testResult = testConcurrentSessions() & testShutdown();
+
+		if (testResult)
+			System.out.println("Test succeeded!");
+		else
+			System.out.println("Test failed!");
+	}
+
+	private static boolean testConcurrentSessions() throws InterruptedException {
+		System.out.println("Check concurrent sessions with one failing session");
+
+		MonitorService service = new MonitorService(2);
+		MonitorSession[] sessions = new MonitorSession[NUMBER_OF_SESSIONS];
+		Thread[] threads = new Thread[2 * NUMBER_OF_SESSIONS];
+		for (int s = 0; s < NUMBER_OF_SESSIONS; s++) {
+			sessions[s] = service.openSession(2);
+			Monitor monitor = sessions[s].getMonitor();
+			AbstractProcess[] processes = new AbstractProcess[2];
+			processes[0] = new Process1(monitor, processes, 0);
+			processes[1] = new Process2(monitor, processes, 1);
+			threads[2 * s] = new Thread(processes[0]);
+			threads[2 * s + 1] = new Thread(processes[1]);
+		}
+
+		// process 1 of this session never reports an event, so the analysis
+		// runs out of the bounds of its queue
+		MonitorSession failing = service.openSession(2);
+		failing.getMonitor().receiveMessage(0, new Message(new VectorClock(0, 2), 0));
+		failing.getMonitor().processTerminated(0);
+		failing.getMonitor().processTerminated(1);
+
+		for (Thread thread : threads)
+			thread.start();
+		for (Thread thread : threads)
+			thread.join();
+
+		boolean passed = true;
+		for (MonitorSession session : sessions) {
+			if (!session.await(30, TimeUnit.SECONDS) || session.getStatus() != MonitorSession.Status.FINISHED) {
+				System.out.printf("session %d: %s%n", session.getSessionId(), session.getStatus());
+				passed = false;
+				continue;
+			}
+			boolean[] possibly = session.getPossiblyTruePredicatesIndex();
+			boolean[] definitely = session.getDefinitelyTruePredicatesIndex();
+			if (!possibly[0] || !definitely[0] || !possibly[1] || definitely[1] || possibly[2] || definitely[2]) {
+				System.out.printf("session %d: wrong verdicts%n", session.getSessionId());
+				passed = false;
+			}
+		}
+
+		if (!failing.await(30, TimeUnit.SECONDS) || failing.getStatus() != MonitorSession.Status.FAILED
+				|| failing.getFailure() == null) {
+			System.out.printf("failing session: %s%n", failing.getStatus());
+			passed = false;
+		}
+		if (service.getActiveSessions() != 0) {
+			System.out.printf("%d sessions still active%n", service.getActiveSessions());
+			passed = false;
+		}
+
+		service.shutdown();
+		return passed;
+	}
+
+	private static boolean testShutdown() throws InterruptedException {
+		System.out.println("Check termination after shutdown");
+
+		MonitorService service = new MonitorService(1);
+		MonitorSession session = service.openSession(2);
+		service.shutdown();
+
+		session.getMonitor().processTerminated(0);
+		session.getMonitor().processTerminated(1);
+
+		try {
+			service.openSession(2);
+			return false;
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		return session.await(1, TimeUnit.SECONDS) && session.getStatus() == MonitorSession.Status.CANCELLED
+				&& service.getActiveSessions() == 0;
+	}
+}
@@ -0,0 +1,144 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One monitoring session of a MonitorService. The analysis of the session runs
+ * as a chain of tasks on the worker pool of the service, one task per
+ * predicate, see Monitor.analyzePredicate.
+ */
+public class MonitorSession {
+
+	public enum Status {
+		RUNNING, // processes still running
+		ANALYZING, // queued or executed by the worker pool
+		FINISHED, CANCELLED, FAILED // see getFailure()
+	}
+
+	private final MonitorService service;
+	private final int sessionId;
+	private final Monitor monitor;
+
+	private volatile Status status = Status.RUNNING;
+	private volatile Throwable failure;
+	private int nextPredicateNo = 0;
+
+	private final CountDownLatch done = new CountDownLatch(1);
+
+	MonitorSession(MonitorService service, int sessionId, Monitor monitor) {
+		this.service = service;
+		this.sessionId = sessionId;
+		this.monitor = monitor;
+	}
+
+	public int getSessionId() {
+		return sessionId;
+	}
+
+	/**
+	 * @return the monitor the processes of this session report to. Do not run
+	 *         it in an own thread, the service analyzes it.
+	 */
+	public Monitor getMonitor() {
+		return monitor;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return what the analysis threw if the session FAILED, else null
+	 */
+	public Throwable getFailure() {
+		return failure;
+	}
+
+	/**
+	 * cancel the session. A predicate check that already runs is finished,
+	 * the remaining predicates are skipped. Processes that still report to the
+	 * monitor are not affected.
+	 */
+	public void cancel() {
+		if (moveTo(Status.CANCELLED))
+			close();
+	}
+
+	/**
+	 * wait till the session is finished, cancelled or failed
+	 *
+	 * @return false if the timeout elapsed first
+	 */
+	public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+		return done.await(timeout, unit);
+	}
+
+	public void await() throws InterruptedException {
+		done.await();
+	}
+
+	public boolean[] getPossiblyTruePredicatesIndex() {
+		return monitor.getPossiblyTruePredicatesIndex();
+	}
+
+	public boolean[] getDefinitelyTruePredicatesIndex() {
+		return monitor.getDefinitelyTruePredicatesIndex();
+	}
+
+	/**
+	 * called by the last process that terminates. After a shutdown of the
+	 * service the session is cancelled instead of analyzed.
+	 */
+	void processesTerminated() {
+		synchronized (this) {
+			if (status != Status.RUNNING)
+				return;
+			status = Status.ANALYZING;
+		}
+		scheduleNextPredicate();
+	}
+
+	private void scheduleNextPredicate() {
+		if (!service.schedule(this::analyzeNextPredicate))
+			cancel();
+	}
+
+	private void analyzeNextPredicate() {
+		if (status != Status.ANALYZING)
+			return;
+
+		try {
+			monitor.analyzePredicate(nextPredicateNo++);
+		} catch (Throwable e) {
+			failure = e;
+			if (moveTo(Status.FAILED))
+				close();
+			return;
+		}
+
+		if (status != Status.ANALYZING)
+			return;
+
+		if (nextPredicateNo < monitor.getNumberOfCheckedPredicates()) {
+			// go to the end of the queue, behind the other sessions
+			scheduleNextPredicate();
+		} else if (moveTo(Status.FINISHED))
+			close();
+	}
+
+	/**
+	 * @return false if the session already ended
+	 */
+	private synchronized boolean moveTo(Status end) {
+		if (status == Status.FINISHED || status == Status.CANCELLED || status == Status.FAILED)
+			return false;
+		status = end;
+		return true;
+	}
+
+	private void close() {
+		service.sessionClosed(this);
+		done.countDown();
+	}
+}
@@ -3,15 +3,75 @@ package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
 //you are not allowed to change this class structure
 public class Predicate {
 
+	/**
+	 * evaluate predicate (predicateNo) on the local variables of two events
+	 *
+	 * @param predicateNo
+	 * @param process_i_Message
+	 * @param process_j_Message
+	 * @return the predicate value
+	 */
+	static public boolean evaluate(int predicateNo, Message process_i_Message, Message process_j_Message) {
+		switch (predicateNo) {
+		case 0:
+			return predicate0(process_i_Message, process_j_Message);
+		case 1:
+			return predicate1(process_i_Message, process_j_Message);
+		case 2:
+			return predicate2(process_i_Message, process_j_Message);
+		case 3:
+			return predicate3(process_i_Message, process_j_Message);
+		default:
+			throw new IllegalArgumentException("unknown predicate " + predicateNo);
+		}
+	}
+
+	/**
+	 * estimate how far the local variables of two events are from satisfying
+	 * predicate (predicateNo); 0 exactly for events that satisfy it. Used to
+	 * order the search of ExplicitLattice, so it only has to be a good guess.
+	 * The predicates and the distance compute in long, so they agree at the
+	 * ends of the int range as well.
+	 *
+	 * @param predicateNo
+	 * @param process_i_Message
+	 * @param process_j_Message
+	 * @return a non-negative distance, Integer.MAX_VALUE for distances that do
+	 *         not fit into an int
+	 */
+	static public int distance(int predicateNo, Message process_i_Message, Message process_j_Message) {
+		// in long, the products and differences of two ints do not overflow
+		long x1 = process_i_Message.getLocalVariable();
+		long x2 = process_j_Message.getLocalVariable();
+		long distance;
+		switch (predicateNo) {
+		case 0:
+			distance = Math.abs(Math.abs(3 * x1 - 4 * x2) - 25);
+			break;
+		case 1:
+			distance = Math.abs(x1 - x2 - 15);
+			break;
+		case 2:
+			distance = Math.abs(x1 + x2 - 30);
+			break;
+		case 3:
+			distance = Math.abs(x1 - x2 - 8);
+			break;
+		default:
+			throw new IllegalArgumentException("unknown predicate " + predicateNo);
+		}
+		return (int) Math.min(distance, Integer.MAX_VALUE);
+	}
+
 	static public boolean predicate0(Message process_i_Message, Message process_j_Message) {
-		if (Math.abs(3 * process_i_Message.getLocalVariable() - 4 * process_j_Message.getLocalVariable()) == 25)
+		if (Math.abs(3L * process_i_Message.getLocalVariable() - 4L * process_j_Message.getLocalVariable()) == 25)
 			return true;
 		else
 			return false;
 	}
 
 	static public boolean predicate1(Message process_i_Message, Message process_j_Message) {
-		boolean retVal = process_i_Message.getLocalVariable() - process_j_Message.getLocalVariable() == 15;
+		boolean retVal = (long) process_i_Message.getLocalVariable() - process_j_Message.getLocalVariable() == 15;
 
 		return retVal;
 		// TODO
@@ -21,7 +81,7 @@ public class Predicate {
 	}
 
 	static public boolean predicate2(Message process_i_Message, Message process_j_Message) {
-		boolean retVal = process_i_Message.getLocalVariable() + process_j_Message.getLocalVariable() == 30;
+		boolean retVal = (long) process_i_Message.getLocalVariable() + process_j_Message.getLocalVariable() == 30;
 
 		return retVal;
 		// TODO
@@ -32,8 +92,8 @@ public class Predicate {
 	}
 
 	static public boolean predicate3(Message process_i_Message, Message process_j_Message) {
-		boolean retVal = process_i_Message.getLocalVariable() - process_j_Message.getLocalVariable() == 8;
-		return false;
+		boolean retVal = (long) process_i_Message.getLocalVariable() - process_j_Message.getLocalVariable() == 8;
+		return retVal;
 		// TODO
 		/*
 		 * Add your code here to implement predicate1 x1- x3= 8
@@ -8,7 +8,7 @@ public class Process1 extends AbstractProcess {
 	public Process1(Monitor monitor, AbstractProcess[] processes, int Id) {
 		super(monitor, processes, Id);
 
-		vectorClock = new VectorClock(this.Id, this.numberOfProcesses);
+		vectorClock = createVectorClock();
 	}
 
 	@Override
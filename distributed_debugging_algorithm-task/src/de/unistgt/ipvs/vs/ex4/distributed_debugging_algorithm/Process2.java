@@ -8,7 +8,7 @@ public class Process2 extends AbstractProcess {
 	public Process2(Monitor monitor, AbstractProcess[] processes, int Id) {
 		super(monitor, processes, Id);
 
-		vectorClock = new VectorClock(this.Id, this.numberOfProcesses);
+		vectorClock = createVectorClock();
 	}
 
 	@Override
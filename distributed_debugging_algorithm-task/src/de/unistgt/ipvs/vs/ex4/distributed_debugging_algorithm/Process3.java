@@ -7,7 +7,7 @@ public class Process3 extends AbstractProcess {
 	public Process3(Monitor monitor, AbstractProcess[] processes, int Id) {
 		super(monitor, processes, Id);
 
-		vectorClock = new VectorClock(this.Id, this.numberOfProcesses);
+		vectorClock = createVectorClock();
 	}
 
 	@Override
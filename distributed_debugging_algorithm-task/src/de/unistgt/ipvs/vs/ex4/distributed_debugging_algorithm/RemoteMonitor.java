@@ -0,0 +1,30 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+/**
+ * Stand-in for the Monitor in a process JVM: events and terminations are
+ * forwarded to the real Monitor behind a TransportHub. Nothing is analyzed
+ * here, do not run it.
+ */
+public class RemoteMonitor extends Monitor {
+
+	private final TransportClient client;
+
+	public RemoteMonitor(int numberOfProcesses, TransportClient client) {
+		this(numberOfProcesses, VectorClock.Mode.VECTOR, client);
+	}
+
+	public RemoteMonitor(int numberOfProcesses, VectorClock.Mode clockMode, TransportClient client) {
+		super(numberOfProcesses, clockMode);
+		this.client = client;
+	}
+
+	@Override
+	public void receiveMessage(int processId, Message message) {
+		client.event(processId, message);
+	}
+
+	@Override
+	public void processTerminated(int processId) {
+		client.terminated(processId);
+	}
+}
@@ -0,0 +1,26 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+/**
+ * Stand-in for the Monitor in a process JVM: events and terminations are
+ * written to a shared memory EventRing that the real Monitor consumes, see
+ * ColumnarEventLog.ingest. Nothing is analyzed here, do not run it.
+ */
+public class RingMonitor extends Monitor {
+
+	private final EventRing ring;
+
+	public RingMonitor(int numberOfProcesses, EventRing ring) {
+		super(numberOfProcesses);
+		this.ring = ring;
+	}
+
+	@Override
+	public void receiveMessage(int processId, Message message) {
+		ring.publish(processId, message);
+	}
+
+	@Override
+	public void processTerminated(int processId) {
+		ring.terminate(processId);
+	}
+}
@@ -0,0 +1,305 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Randomized counterpart of DebugTest.
+ *
+ * - checks the verdicts of every detection path against a brute force
+ * enumeration of all cuts on small random runs.
+ * - times the paths that scale linearly on runs of 2 to 16 processes and up
+ * to 10^5 events, and the explicit lattice search on runs of 4 processes.
+ * Fails if the throughput of a gated run drops below half of the baseline
+ * stored in ScalingTest.properties. Gated are the runs that take
+ * milliseconds: the linear paths on GATED_EVENTS events and the explicit
+ * search on EXPLICIT_GATED_EVENTS events. Smaller runs finish in
+ * microseconds and are too noisy for the tolerance, they are reported only.
+ * A missing baseline fails the test.
+ *
+ * Pass a file name to write the measured throughput as new baseline.
+ */
+public class ScalingTest {
+
+	// a measurement fails below this fraction of its baseline
+	private static final double TOLERANCE = 0.5;
+
+	// runs of at least this many events are compared with the baseline
+	private static final int GATED_EVENTS = 100000;
+
+	// the explicit search takes time per state, not per event: on this many
+	// events of 4 processes it visits about 120000 states
+	private static final int EXPLICIT_GATED_EVENTS = 1000;
+
+	public static void main(String[] args) throws IOException {
+		boolean testResult = testVerdicts() & testThroughput(args.length > 0 ? args[0] : null);
+
+		if (testResult)
+			System.out.println("Test succeeded!");
+		else
+			System.out.println("Test failed!");
+	}
+
+	/**
+	 * - compare all engines with reference() on random runs.
+	 * - compare the Monitor itself on some of them, in both clock modes.
+	 */
+	private static boolean testVerdicts() throws IOException {
+		System.out.println("Check verdicts against the brute force enumeration");
+
+		int runs = 0;
+		int mismatches = 0;
+		for (int seed = 0; seed < 300; seed++) {
+			int numberOfProcesses = 2 + seed % 3;
+			TraceGenerator generator = new TraceGenerator(seed);
+			generator.setMaxLocalVariable(30);
+			List<List<Message>> processesMessages = generator.generate(numberOfProcesses, 6 + seed % 7);
+
+			ExplicitLattice explicit = new ExplicitLattice(processesMessages);
+			ExplicitLattice reduced = new ExplicitLattice(processesMessages);
+			reduced.setPartialOrderReduction(true);
+			ExplicitLattice bestFirst = new ExplicitLattice(processesMessages);
+			bestFirst.setBestFirst(true);
+			ExplicitLattice spilling = new ExplicitLattice(processesMessages);
+			spilling.setSpilling(null, 4);
+			SymbolicLattice symbolic = new SymbolicLattice(processesMessages);
+			EventIndex eventIndex = new EventIndex(processesMessages);
+
+			for (int predicateNo = 0; predicateNo < 4; predicateNo++) {
+				int process_j_id = predicateNo == 3 ? numberOfProcesses - 1 : 1;
+				boolean[] expected = reference(processesMessages, predicateNo, 0, process_j_id);
+
+				mismatches += compare(seed, "explicit", predicateNo, expected, explicit, 0, process_j_id);
+				mismatches += compare(seed, "por", predicateNo, expected, reduced, 0, process_j_id);
+				mismatches += compare(seed, "best-first", predicateNo, expected, bestFirst, 0, process_j_id);
+				mismatches += compare(seed, "spilling", predicateNo, expected, spilling, 0, process_j_id);
+				mismatches += compare(seed, "symbolic", predicateNo, expected, symbolic, 0, process_j_id);
+				if (eventIndex.possibly(predicateNo, 0, process_j_id) != expected[0]) {
+					System.out.printf("seed %d: event-index possibly of predicate%d wrong%n", seed, predicateNo);
+					mismatches++;
+				}
+				runs++;
+			}
+
+			mismatches += compareMonitor(seed, numberOfProcesses, 6 + seed % 7);
+		}
+
+		System.out.printf("%d checks, %d mismatches%n", runs, mismatches);
+		return mismatches == 0;
+	}
+
+	private static int compare(int seed, String name, int predicateNo, boolean[] expected, LatticeEngine engine,
+			int process_i_id, int process_j_id) {
+		int mismatches = 0;
+		if (engine.possibly(predicateNo, process_i_id, process_j_id) != expected[0]) {
+			System.out.printf("seed %d: %s possibly of predicate%d wrong%n", seed, name, predicateNo);
+			mismatches++;
+		}
+		if (engine.definitely(predicateNo, process_i_id, process_j_id) != expected[1]) {
+			System.out.printf("seed %d: %s definitely of predicate%d wrong%n", seed, name, predicateNo);
+			mismatches++;
+		}
+		return mismatches;
+	}
+
+	/**
+	 * replay the run into a Monitor in DIRECT_DEPENDENCY mode and compare its
+	 * verdicts. The lattice of Monitor.buildLattice holds the states of the
+	 * two processes of the predicate only, it has to agree with the full cuts
+	 * of reference() for any number of processes.
+	 */
+	private static int compareMonitor(int seed, int numberOfProcesses, int numberOfEvents) {
+		TraceGenerator generator = new TraceGenerator(seed);
+		generator.setMaxLocalVariable(30);
+		generator.setClockMode(VectorClock.Mode.DIRECT_DEPENDENCY);
+		List<List<Message>> processesMessages = generator.generate(numberOfProcesses, numberOfEvents);
+
+		Monitor monitor = new Monitor(numberOfProcesses, VectorClock.Mode.DIRECT_DEPENDENCY);
+		TraceGenerator.replay(processesMessages, monitor);
+		monitor.run();
+
+		int mismatches = 0;
+		for (int predicateNo = 0; predicateNo < monitor.getNumberOfCheckedPredicates(); predicateNo++) {
+			boolean[] expected = reference(processesMessages, predicateNo, 0, predicateNo < 3 ? 1 : 2);
+			if (monitor.getPossiblyTruePredicatesIndex()[predicateNo] != expected[0]
+					|| monitor.getDefinitelyTruePredicatesIndex()[predicateNo] != expected[1]) {
+				System.out.printf("seed %d: monitor verdicts of predicate%d wrong%n", seed, predicateNo);
+				mismatches++;
+			}
+		}
+		return mismatches;
+	}
+
+	/**
+	 * Enumerate all cuts in the order of their mixed radix index, so the
+	 * predecessors of a cut always come first. A cut is reachable through
+	 * states where the predicate is false if it is consistent, the predicate
+	 * is false in it, and it is the initial state or one of its predecessors
+	 * is reachable that way.
+	 *
+	 * @return {possibly, definitely}
+	 */
+	static boolean[] reference(List<List<Message>> processesMessages, int predicateNo, int process_i_id,
+			int process_j_id) {
+		int numberOfProcesses = processesMessages.size();
+		int[] weights = new int[numberOfProcesses];
+		int numberOfCuts = 1;
+		for (int k = 0; k < numberOfProcesses; k++) {
+			weights[k] = numberOfCuts;
+			numberOfCuts *= processesMessages.get(k).size();
+		}
+
+		boolean possibly = false;
+		boolean[] reachable = new boolean[numberOfCuts];
+		int[] cut = new int[numberOfProcesses];
+		for (int index = 0; index < numberOfCuts; index++) {
+			for (int k = 0; k < numberOfProcesses; k++)
+				cut[k] = index / weights[k] % processesMessages.get(k).size();
+
+			if (!isConsistent(processesMessages, cut))
+				continue;
+
+			if (Predicate.evaluate(predicateNo, processesMessages.get(process_i_id).get(cut[process_i_id]),
+					processesMessages.get(process_j_id).get(cut[process_j_id]))) {
+				possibly = true;
+				continue;
+			}
+
+			reachable[index] = index == 0;
+			for (int k = 0; k < numberOfProcesses && !reachable[index]; k++)
+				reachable[index] = cut[k] > 0 && reachable[index - weights[k]];
+		}
+		return new boolean[] { possibly, !reachable[numberOfCuts - 1] };
+	}
+
+	private static boolean isConsistent(List<List<Message>> processesMessages, int[] cut) {
+		for (int k = 0; k < cut.length; k++)
+			for (int m = k + 1; m < cut.length; m++) {
+				VectorClock clock = processesMessages.get(k).get(cut[k]).getVectorClock();
+				if (!clock.checkConsistency(m, processesMessages.get(m).get(cut[m]).getVectorClock()))
+					return false;
+			}
+		return true;
+	}
+
+	/**
+	 * time the linear paths and compare with the baseline
+	 *
+	 * @param baselineFile
+	 *            write the measurements there if not null
+	 */
+	private static boolean testThroughput(String baselineFile) throws IOException {
+		System.out.println("Check throughput against the baseline");
+
+		Properties baseline = new Properties();
+		try (InputStream in = ScalingTest.class.getResourceAsStream("ScalingTest.properties")) {
+			if (in != null)
+				baseline.load(in);
+		}
+		if (baseline.isEmpty())
+			System.out.println("WARNING: ScalingTest.properties not found, no baseline to compare with");
+		Properties measured = new Properties();
+
+		System.out.printf("%-12s %-10s %-8s %14s %14s %14s%n", "path", "processes", "events", "events/ms",
+				"baseline", "bytes/event");
+
+		boolean passed = true;
+		for (int numberOfProcesses : new int[] { 2, 4, 8, 16 })
+			for (int numberOfEvents : new int[] { 10, 1000, 100000 }) {
+				boolean gated = numberOfEvents >= GATED_EVENTS;
+				passed &= measure("event-index", numberOfProcesses, numberOfEvents, gated, baseline, measured);
+				passed &= measure("reconstruct", numberOfProcesses, numberOfEvents, gated, baseline, measured);
+			}
+		for (int numberOfEvents : new int[] { 10, 100, EXPLICIT_GATED_EVENTS })
+			passed &= measure("explicit", 4, numberOfEvents, numberOfEvents >= EXPLICIT_GATED_EVENTS, baseline,
+					measured);
+
+		if (baselineFile != null)
+			try (OutputStream out = new FileOutputStream(baselineFile)) {
+				measured.store(out, "events per millisecond, see ScalingTest");
+			}
+		return passed && !baseline.isEmpty();
+	}
+
+	/**
+	 * best of five runs after one warm up run; memory is what the result of
+	 * the path holds on to
+	 *
+	 * @param gated
+	 *            compare the throughput with the baseline
+	 */
+	private static boolean measure(String path, int numberOfProcesses, int numberOfEvents, boolean gated,
+			Properties baseline, Properties measured) {
+		long bestNanos = Long.MAX_VALUE;
+		long bytes = 0;
+		for (int run = 0; run < 6; run++) {
+			// the same run every time, only the timing varies
+			TraceGenerator generator = new TraceGenerator(numberOfProcesses);
+			if (path.equals("reconstruct"))
+				generator.setClockMode(VectorClock.Mode.DIRECT_DEPENDENCY);
+			List<List<Message>> processesMessages = generator.generate(numberOfProcesses, numberOfEvents);
+
+			long usedBefore = usedMemory();
+			long start = System.nanoTime();
+			Object result = runPath(path, processesMessages);
+			long nanos = System.nanoTime() - start;
+			long used = usedMemory() - usedBefore;
+			if (result == null)
+				throw new IllegalStateException();
+
+			if (run > 0 && nanos < bestNanos) {
+				bestNanos = nanos;
+				bytes = used;
+			}
+		}
+
+		String key = path + ".n" + numberOfProcesses + ".e" + numberOfEvents;
+		double eventsPerMilli = numberOfEvents / (Math.max(bestNanos, 1) / 1e6);
+		measured.setProperty(key, String.format("%.0f", eventsPerMilli));
+
+		String expected = baseline.getProperty(key);
+		String verdict = "";
+		if (gated) {
+			if (expected == null)
+				verdict = "  NO BASELINE";
+			else if (eventsPerMilli < TOLERANCE * Double.parseDouble(expected))
+				verdict = "  REGRESSION";
+		}
+		System.out.printf("%-12s %-10d %-8d %14.0f %14s %14d%s%n", path, numberOfProcesses, numberOfEvents,
+				eventsPerMilli, expected == null ? "-" : expected, Math.max(bytes, 0) / numberOfEvents, verdict);
+		return verdict.isEmpty();
+	}
+
+	/**
+	 * @return the structure the path built, its memory is measured
+	 */
+	private static Object runPath(String path, List<List<Message>> processesMessages) {
+		switch (path) {
+		case "event-index": {
+			EventIndex eventIndex = new EventIndex(processesMessages);
+			for (int predicateNo = 0; predicateNo < 3; predicateNo++)
+				eventIndex.possibly(predicateNo, 0, 1);
+			return eventIndex;
+		}
+		case "reconstruct":
+			CausalityReconstructor.reconstruct(processesMessages);
+			return processesMessages;
+		case "explicit": {
+			ExplicitLattice explicit = new ExplicitLattice(processesMessages);
+			return new boolean[] { explicit.possibly(1, 0, 1), explicit.definitely(1, 0, 1) };
+		}
+		default:
+			throw new IllegalArgumentException("unknown path " + path);
+		}
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,116 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * - runs part (b) of DebugTest twice under every seed of DeterministicScheduler
+ * and checks that both runs take the same schedule and end with the same
+ * results, and that the seeds do not all give the same schedule.
+ * - checks that an Error thrown by a process is rethrown by run() instead of
+ * leaving it parked.
+ */
+public class SchedulerTest {
+
+	private static final int SEEDS = 200;
+
+	public static void main(String[] args) throws InterruptedException {
+		boolean testResult = testSameSeedSameSchedule() & testFailingProcess();
+
+		if (testResult)
+			System.out.println("Test succeeded!");
+		else
+			System.out.println("Test failed!");
+	}
+
+	private static boolean testSameSeedSameSchedule() {
+		System.out.println("Check that a seed fixes the schedule");
+
+		boolean passed = true;
+		Set<Long> schedules = new HashSet<>();
+		for (int seed = 0; seed < SEEDS; seed++) {
+			DeterministicScheduler first = new DeterministicScheduler(seed);
+			Monitor firstMonitor = run(first);
+			DeterministicScheduler second = new DeterministicScheduler(seed);
+			Monitor secondMonitor = run(second);
+
+			if (first.getFingerprint() != second.getFingerprint()) {
+				System.out.printf("seed %d: different schedules%n", seed);
+				passed = false;
+			}
+			if (!sameEvents(firstMonitor, secondMonitor)) {
+				System.out.printf("seed %d: different events%n", seed);
+				passed = false;
+			}
+			schedules.add(first.getFingerprint());
+		}
+
+		System.out.printf("%d seeds, %d different schedules%n", SEEDS, schedules.size());
+		return passed && schedules.size() > 1;
+	}
+
+	private static Monitor run(DeterministicScheduler scheduler) {
+		Monitor monitor = new Monitor(2);
+		AbstractProcess[] processes = new AbstractProcess[2];
+		processes[0] = new Process1(monitor, processes, 0);
+		processes[1] = new Process2(monitor, processes, 1);
+		scheduler.run(processes);
+		return monitor;
+	}
+
+	/**
+	 * @return true if both monitors logged the same events
+	 */
+	private static boolean sameEvents(Monitor first, Monitor second) {
+		for (int k = 0; k < 2; k++) {
+			int size = first.getNumberOfEvents(k);
+			if (second.getNumberOfEvents(k) != size)
+				return false;
+			for (int e = 0; e < size; e++) {
+				Message a = first.getProcessesMessages().get(k).get(e);
+				Message b = second.getProcessesMessages().get(k).get(e);
+				if (a.getLocalVariable() != b.getLocalVariable()
+						|| !Arrays.equals(a.getVectorClock().get(), b.getVectorClock().get()))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * process 1 fails with an AssertionError while process 0 waits for its
+	 * messages
+	 */
+	private static boolean testFailingProcess() throws InterruptedException {
+		System.out.println("Check a process that throws an Error");
+
+		Monitor monitor = new Monitor(2);
+		final AbstractProcess[] processes = new AbstractProcess[2];
+		processes[0] = new Process1(monitor, processes, 0);
+		processes[1] = new AbstractProcess(monitor, processes, 1) {
+			@Override
+			public void run() {
+				throw new AssertionError("process 1 failed");
+			}
+		};
+
+		final Throwable[] thrown = new Throwable[1];
+		Thread runner = new Thread(() -> {
+			try {
+				new DeterministicScheduler(0).run(processes);
+			} catch (Throwable e) {
+				thrown[0] = e;
+			}
+		});
+		runner.setDaemon(true);
+		runner.start();
+		runner.join(10000);
+
+		if (runner.isAlive()) {
+			System.out.println("run() did not return");
+			return false;
+		}
+		return thrown[0] instanceof IllegalStateException && thrown[0].getCause() instanceof AssertionError;
+	}
+}
@@ -0,0 +1,322 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Chandy-Lamport snapshots taken while the processes run, as a cheap
+ * alternative to the lattice for stable properties such as termination.
+ *
+ * The channels of AbstractProcess hold one message at a time, so a marker
+ * cannot be put into the channel itself. Instead a process that records its
+ * state stamps a marker on each outgoing channel with the number of messages
+ * it sent on that channel so far. The receiver gets the marker once it
+ * received exactly that many messages, which is the FIFO position the marker
+ * would have had. Processes look for markers whenever they send or receive,
+ * and while they wait for the other side.
+ *
+ * Rules per process, as in the original algorithm: the first marker (or the
+ * request to initiate) records the local state and sends markers on all
+ * outgoing channels. Messages received on a channel after recording and
+ * before the marker of that channel form the state of the channel.
+ *
+ * A terminated process never sends or receives again, so its final state is
+ * recorded for it and the markers sent to it count as received.
+ *
+ * Only processes in one JVM are supported, not processes connected through
+ * TransportClient.
+ */
+public class SnapshotCoordinator {
+
+	private final Monitor monitor;
+	private final AbstractProcess[] processes;
+	private final int numberOfProcesses;
+	private final int initiatorId;
+
+	// messages per channel [from][to] over the whole run. sent[from] is only
+	// written by process (from), received[..][to] only by process (to)
+	private final long[][] sent;
+	private final long[][] received;
+	private final boolean[] terminated;
+
+	// the snapshot in progress, valid while active
+	private volatile boolean active;
+	private int epoch = -1;
+	private boolean initiatorPending;
+	private boolean[] recorded;
+	private int[] localVariables;
+	private int[] events;
+	private boolean[] terminatedAtRecording;
+	// number of messages sent before the marker on channel [from][to], -1
+	// before (from) recorded
+	private long[][] markerPositions;
+	private boolean[][] markersReceived;
+	private List<Message>[][] channelStates;
+	private int pendingRecordings;
+	private int pendingMarkers;
+
+	private GlobalSnapshot latestSnapshot;
+	private Consumer<GlobalSnapshot> listener;
+	private ScheduledExecutorService initiator;
+
+	/**
+	 * attach a coordinator to the processes of a run, before they start
+	 *
+	 * @param initiatorId
+	 *            process that records first in every snapshot
+	 */
+	public SnapshotCoordinator(Monitor monitor, AbstractProcess[] processes, int initiatorId) {
+		this.monitor = monitor;
+		this.processes = processes;
+		this.numberOfProcesses = processes.length;
+		this.initiatorId = initiatorId;
+
+		sent = new long[numberOfProcesses][numberOfProcesses];
+		received = new long[numberOfProcesses][numberOfProcesses];
+		terminated = new boolean[numberOfProcesses];
+
+		for (AbstractProcess process : processes)
+			process.setSnapshotCoordinator(this);
+		monitor.setSnapshotCoordinator(this);
+	}
+
+	/**
+	 * @param listener
+	 *            called with every finished snapshot, in the thread of the
+	 *            process that received the last marker
+	 */
+	public synchronized void setListener(Consumer<GlobalSnapshot> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * start a snapshot, unless one is still in progress
+	 *
+	 * @return false if a snapshot is still in progress
+	 */
+	public boolean initiate() {
+		GlobalSnapshot snapshot;
+		synchronized (this) {
+			if (active)
+				return false;
+			startEpoch();
+			// a terminated initiator would never look for the request
+			if (terminated[initiatorId])
+				record(initiatorId);
+			else
+				initiatorPending = true;
+			snapshot = takeCompleted();
+		}
+		notifyListener(snapshot);
+		return true;
+	}
+
+	/**
+	 * take a snapshot and wait for it; joins the snapshot in progress, if any
+	 */
+	public GlobalSnapshot takeSnapshot() throws InterruptedException {
+		int target;
+		synchronized (this) {
+			target = active ? epoch : epoch + 1;
+		}
+		initiate();
+		synchronized (this) {
+			while (latestSnapshot == null || latestSnapshot.getEpoch() < target)
+				wait();
+			return latestSnapshot;
+		}
+	}
+
+	/**
+	 * initiate a snapshot every intervalMillis until a snapshot shows that the
+	 * computation terminated, or stop() is called
+	 */
+	public synchronized void start(long intervalMillis) {
+		if (initiator != null)
+			throw new IllegalStateException("snapshots are already taken periodically");
+
+		initiator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "snapshot-initiator");
+			thread.setDaemon(true);
+			return thread;
+		});
+		initiator.scheduleAtFixedRate(this::initiate, 0, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void stop() {
+		if (initiator != null) {
+			initiator.shutdown();
+			initiator = null;
+		}
+	}
+
+	public synchronized GlobalSnapshot getLatestSnapshot() {
+		return latestSnapshot;
+	}
+
+	/**
+	 * called by process (processId) before it sends and while it waits
+	 */
+	void poll(int processId) {
+		if (!active)
+			return;
+
+		GlobalSnapshot snapshot;
+		synchronized (this) {
+			if (!active)
+				return;
+			if (initiatorPending && processId == initiatorId)
+				record(processId);
+			receiveMarkers(processId);
+			snapshot = takeCompleted();
+		}
+		notifyListener(snapshot);
+	}
+
+	/**
+	 * called by process (from) before the message is visible to (to)
+	 */
+	void messageSent(int from, int to) {
+		sent[from][to]++;
+	}
+
+	/**
+	 * called by process (to) when it takes a message, before it acts on it
+	 */
+	void messageReceived(int from, int to, Message message) {
+		GlobalSnapshot snapshot = null;
+		if (active) {
+			synchronized (this) {
+				if (active) {
+					// a marker that was sent before the message comes first
+					receiveMarkers(to);
+					if (recorded[to] && !markersReceived[from][to])
+						channelStates[from][to].add(message);
+					snapshot = takeCompleted();
+				}
+			}
+		}
+		received[from][to]++;
+		notifyListener(snapshot);
+	}
+
+	/**
+	 * called by the Monitor in the thread of the terminating process
+	 */
+	void processTerminated(int processId) {
+		GlobalSnapshot snapshot;
+		synchronized (this) {
+			terminated[processId] = true;
+			if (!active)
+				return;
+
+			if (!recorded[processId])
+				record(processId);
+			for (int from = 0; from < numberOfProcesses; from++)
+				if (from != processId && markerPositions[from][processId] >= 0)
+					markerReceived(from, processId);
+			snapshot = takeCompleted();
+		}
+		notifyListener(snapshot);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void startEpoch() {
+		epoch++;
+		active = true;
+		recorded = new boolean[numberOfProcesses];
+		localVariables = new int[numberOfProcesses];
+		events = new int[numberOfProcesses];
+		terminatedAtRecording = new boolean[numberOfProcesses];
+		markerPositions = new long[numberOfProcesses][numberOfProcesses];
+		markersReceived = new boolean[numberOfProcesses][numberOfProcesses];
+		channelStates = new List[numberOfProcesses][numberOfProcesses];
+		for (int from = 0; from < numberOfProcesses; from++)
+			for (int to = 0; to < numberOfProcesses; to++) {
+				markerPositions[from][to] = -1;
+				markersReceived[from][to] = from == to;
+				channelStates[from][to] = new ArrayList<>();
+			}
+		pendingRecordings = numberOfProcesses;
+		pendingMarkers = numberOfProcesses * (numberOfProcesses - 1);
+	}
+
+	/**
+	 * record the state of process k and send its markers
+	 */
+	private void record(int k) {
+		if (k == initiatorId)
+			initiatorPending = false;
+		recorded[k] = true;
+		localVariables[k] = processes[k].getLocalVariable();
+		events[k] = monitor.getNumberOfEvents(k) - 1;
+		terminatedAtRecording[k] = terminated[k];
+		pendingRecordings--;
+
+		for (int to = 0; to < numberOfProcesses; to++) {
+			if (to == k)
+				continue;
+			markerPositions[k][to] = sent[k][to];
+			if (terminated[to]) {
+				if (!recorded[to])
+					record(to);
+				markerReceived(k, to);
+			}
+		}
+	}
+
+	/**
+	 * receive all markers of process k that have reached their position
+	 */
+	private void receiveMarkers(int k) {
+		for (int from = 0; from < numberOfProcesses; from++) {
+			if (markersReceived[from][k] || markerPositions[from][k] < 0
+					|| received[from][k] != markerPositions[from][k])
+				continue;
+			if (!recorded[k])
+				record(k);
+			markerReceived(from, k);
+		}
+	}
+
+	private void markerReceived(int from, int to) {
+		if (markersReceived[from][to])
+			return;
+		markersReceived[from][to] = true;
+		pendingMarkers--;
+	}
+
+	/**
+	 * @return the snapshot if the last marker was received just now, else null
+	 */
+	private GlobalSnapshot takeCompleted() {
+		if (!active || pendingRecordings > 0 || pendingMarkers > 0)
+			return null;
+
+		active = false;
+		latestSnapshot = new GlobalSnapshot(epoch, localVariables, events, terminatedAtRecording, channelStates);
+		notifyAll();
+		return latestSnapshot;
+	}
+
+	/**
+	 * runs outside the lock, so the listener may initiate the next snapshot
+	 */
+	private void notifyListener(GlobalSnapshot snapshot) {
+		if (snapshot == null)
+			return;
+
+		Consumer<GlobalSnapshot> listener;
+		synchronized (this) {
+			listener = this.listener;
+		}
+		if (listener != null)
+			listener.accept(snapshot);
+		if (snapshot.isComputationTerminated())
+			stop();
+	}
+}
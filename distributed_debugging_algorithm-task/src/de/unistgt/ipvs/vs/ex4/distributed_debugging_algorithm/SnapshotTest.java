@@ -0,0 +1,84 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs part (b) of DebugTest while SnapshotCoordinator takes a snapshot every
+ * millisecond, and checks every recorded snapshot against the event queues
+ * of the Monitor:
+ * - the recorded cut is consistent.
+ * - the recorded local variables are those of the events of the cut.
+ * - the snapshot taken after the processes terminated shows termination.
+ */
+public class SnapshotTest {
+
+	private static final int RUNS = 20;
+
+	public static void main(String[] args) throws InterruptedException {
+		System.out.println("Check snapshots taken while the processes run");
+
+		int snapshots = 0;
+		int failures = 0;
+		for (int run = 0; run < RUNS; run++) {
+			int numberOfProcesses = 2;
+			Monitor monitor = new Monitor(numberOfProcesses);
+			AbstractProcess[] processes = new AbstractProcess[numberOfProcesses];
+			processes[0] = new Process1(monitor, processes, 0);
+			processes[1] = new Process2(monitor, processes, 1);
+
+			SnapshotCoordinator coordinator = new SnapshotCoordinator(monitor, processes, run % numberOfProcesses);
+			List<GlobalSnapshot> recorded = Collections.synchronizedList(new ArrayList<GlobalSnapshot>());
+			coordinator.setListener(recorded::add);
+			coordinator.start(1);
+
+			Thread process1Thread = new Thread(processes[0]);
+			Thread process2Thread = new Thread(processes[1]);
+			process1Thread.start();
+			process2Thread.start();
+			process1Thread.join();
+			process2Thread.join();
+
+			GlobalSnapshot last = coordinator.takeSnapshot();
+			coordinator.stop();
+			if (!last.isComputationTerminated()) {
+				System.out.printf("run %d: the last snapshot does not show termination%n", run);
+				failures++;
+			}
+
+			List<List<Message>> processesMessages = monitor.getProcessesMessages();
+			synchronized (recorded) {
+				for (GlobalSnapshot snapshot : recorded) {
+					snapshots++;
+					if (!check(snapshot, processesMessages)) {
+						System.out.printf("run %d: snapshot %d is not a consistent state%n", run, snapshot.getEpoch());
+						failures++;
+					}
+				}
+			}
+		}
+
+		System.out.printf("%d snapshots, %d failures%n", snapshots, failures);
+		if (failures == 0 && snapshots > RUNS)
+			System.out.println("Test succeeded!");
+		else
+			System.out.println("Test failed!");
+	}
+
+	private static boolean check(GlobalSnapshot snapshot, List<List<Message>> processesMessages) {
+		int numberOfProcesses = snapshot.getNumberOfProcesses();
+		for (int k = 0; k < numberOfProcesses; k++) {
+			Message message = processesMessages.get(k).get(snapshot.getEvent(k));
+			if (message.getLocalVariable() != snapshot.getLocalVariable(k))
+				return false;
+
+			for (int m = 0; m < numberOfProcesses; m++) {
+				Message other = processesMessages.get(m).get(snapshot.getEvent(m));
+				if (m != k && !message.getVectorClock().checkConsistency(m, other.getVectorClock()))
+					return false;
+			}
+		}
+		return true;
+	}
+}
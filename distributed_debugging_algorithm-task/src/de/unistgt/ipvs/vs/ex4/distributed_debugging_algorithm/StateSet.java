@@ -0,0 +1,289 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Set of encoded states of one lattice level. New states go to an in-memory
+ * hash set; when it holds maxStatesInMemory states, they are sorted and
+ * spilled to a run file and the hash set starts over. Duplicates across runs
+ * are removed later, when seal() merges the runs into one sorted file
+ * (delayed duplicate detection as in external memory breadth first search).
+ * Since states of different levels never coincide, no level has to be checked
+ * against the previous ones.
+ *
+ * Files store the sorted states as unsigned LEB128 deltas.
+ */
+class StateSet {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * iterates the states of a sealed set in ascending order
+	 */
+	interface Cursor {
+		boolean hasNext();
+
+		long next();
+
+		/**
+		 * release the file of the set, needed if the cursor is not read to
+		 * the end
+		 */
+		void close();
+	}
+
+	private final int maxStatesInMemory;
+	private final File spillDirectory;
+
+	private LongHashSet hot;
+	private final List<File> runs = new ArrayList<>();
+
+	// after seal(): either the states in memory or the merged file
+	private long[] sorted;
+	private File merged;
+	private long size;
+
+	/**
+	 * @param maxStatesInMemory
+	 *            Integer.MAX_VALUE never spills
+	 * @param spillDirectory
+	 *            may be null if the set never spills
+	 */
+	StateSet(int maxStatesInMemory, File spillDirectory) {
+		this.maxStatesInMemory = maxStatesInMemory;
+		this.spillDirectory = spillDirectory;
+		hot = new LongHashSet(Math.min(maxStatesInMemory, 1024));
+	}
+
+	void add(long state) {
+		hot.add(state);
+		if (hot.size() >= maxStatesInMemory)
+			spill();
+	}
+
+	/**
+	 * finish adding, remove duplicates across runs
+	 */
+	void seal() {
+		if (runs.isEmpty()) {
+			sorted = hot.toSortedArray();
+			size = sorted.length;
+			hot = null;
+			return;
+		}
+
+		if (hot.size() > 0)
+			spill();
+		hot = null;
+
+		try {
+			merged = File.createTempFile("level", ".states", spillDirectory);
+			size = merge(runs, merged);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		for (File run : runs)
+			run.delete();
+		runs.clear();
+	}
+
+	/**
+	 * @return number of distinct states, only valid after seal()
+	 */
+	long size() {
+		return size;
+	}
+
+	boolean isSpilled() {
+		return merged != null;
+	}
+
+	Cursor cursor() {
+		if (sorted != null) {
+			return new Cursor() {
+				private int next = 0;
+
+				@Override
+				public boolean hasNext() {
+					return next < sorted.length;
+				}
+
+				@Override
+				public long next() {
+					return sorted[next++];
+				}
+
+				@Override
+				public void close() {
+				}
+			};
+		}
+		return new RunReader(merged, size);
+	}
+
+	/**
+	 * delete the files of the set
+	 */
+	void delete() {
+		for (File run : runs)
+			run.delete();
+		if (merged != null)
+			merged.delete();
+		sorted = null;
+	}
+
+	private void spill() {
+		long[] states = hot.toSortedArray();
+		try {
+			File run = File.createTempFile("run", ".states", spillDirectory);
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(run), BUFFER_SIZE))) {
+				long previous = 0;
+				for (long state : states) {
+					writeVarLong(out, state - previous);
+					previous = state;
+				}
+			}
+			runs.add(run);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		hot.clear();
+	}
+
+	/**
+	 * k-way merge of sorted runs into target, dropping duplicates
+	 *
+	 * @return number of states written
+	 */
+	private static long merge(List<File> runs, File target) throws IOException {
+		PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size());
+		for (File run : runs) {
+			RunReader reader = new RunReader(run, Long.MAX_VALUE);
+			if (reader.hasNext()) {
+				reader.next();
+				queue.add(reader);
+			}
+		}
+
+		long count = 0;
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(target), BUFFER_SIZE))) {
+			long previous = 0;
+			boolean first = true;
+			while (!queue.isEmpty()) {
+				RunReader reader = queue.poll();
+				long state = reader.current;
+				if (first || state != previous) {
+					writeVarLong(out, state - previous);
+					previous = state;
+					first = false;
+					count++;
+				}
+				if (reader.hasNext()) {
+					reader.next();
+					queue.add(reader);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * reads a sorted state file; a reader that reached the end closes its
+	 * file
+	 */
+	private static class RunReader implements Cursor, Comparable<RunReader> {
+		private final DataInputStream in;
+		private long remaining;
+		private long current;
+		private long lookahead;
+		private boolean exhausted;
+
+		RunReader(File file, long count) {
+			try {
+				in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			remaining = count;
+			advance();
+		}
+
+		private void advance() {
+			if (remaining == 0) {
+				close();
+				return;
+			}
+			try {
+				lookahead = current + readVarLong(in);
+				remaining--;
+			} catch (EOFException e) {
+				close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public void close() {
+			if (exhausted)
+				return;
+			exhausted = true;
+			try {
+				in.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !exhausted;
+		}
+
+		@Override
+		public long next() {
+			current = lookahead;
+			advance();
+			return current;
+		}
+
+		@Override
+		public int compareTo(RunReader other) {
+			return Long.compare(current, other.current);
+		}
+	}
+
+	static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+}
@@ -0,0 +1,231 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.List;
+
+/**
+ * Symbolic lattice engine. Sets of states are BDDs over the message indices of
+ * the processes, each index encoded in binary. The consistent states, the
+ * states in which a predicate holds and the successor relation are BDDs as
+ * well, so possibly and definitely become fixpoint computations that never
+ * enumerate single states.
+ *
+ * Variable order: the bits of the processes one after another, most
+ * significant bit first, and every bit x directly followed by its next state
+ * copy x'.
+ */
+public class SymbolicLattice implements LatticeEngine {
+
+	private final int numberOfProcesses;
+	private final List<List<Message>> processesMessages;
+
+	private final int[] sizes;
+	private final int[] bits;
+	private final int[] firstBit;
+
+	private final Bdd bdd;
+
+	private final int initialStates;
+	private final int consistentStates;
+	private final int[] increment;
+	private final boolean[][] currentVariables;
+	private final int[] primedToCurrent;
+	private final boolean[] finalAssignment;
+
+	// BDD nodes allocated by the last check
+	private long lastCheckSize;
+
+	public SymbolicLattice(List<List<Message>> processesMessages) {
+		this.processesMessages = processesMessages;
+		this.numberOfProcesses = processesMessages.size();
+
+		sizes = new int[numberOfProcesses];
+		bits = new int[numberOfProcesses];
+		firstBit = new int[numberOfProcesses];
+		int totalBits = 0;
+		for (int k = 0; k < numberOfProcesses; k++) {
+			sizes[k] = processesMessages.get(k).size();
+			bits[k] = Math.max(1, 32 - Integer.numberOfLeadingZeros(sizes[k] - 1));
+			firstBit[k] = totalBits;
+			totalBits += bits[k];
+		}
+
+		bdd = new Bdd(2 * totalBits);
+
+		currentVariables = new boolean[numberOfProcesses][2 * totalBits];
+		primedToCurrent = new int[2 * totalBits];
+		for (int v = 0; v < 2 * totalBits; v++)
+			primedToCurrent[v] = v % 2 == 1 ? v - 1 : v;
+		for (int k = 0; k < numberOfProcesses; k++)
+			for (int b = 0; b < bits[k]; b++)
+				currentVariables[k][variable(k, b, false)] = true;
+
+		finalAssignment = new boolean[2 * totalBits];
+		for (int k = 0; k < numberOfProcesses; k++)
+			for (int b = 0; b < bits[k]; b++)
+				finalAssignment[variable(k, b, false)] = bit(sizes[k] - 1, k, b);
+
+		int init = Bdd.TRUE;
+		for (int k = 0; k < numberOfProcesses; k++)
+			init = bdd.and(init, equal(k, 0, false));
+		initialStates = init;
+
+		consistentStates = buildConsistentStates();
+
+		increment = new int[numberOfProcesses];
+		for (int k = 0; k < numberOfProcesses; k++) {
+			int relation = Bdd.FALSE;
+			for (int v = 0; v + 1 < sizes[k]; v++)
+				relation = bdd.or(relation, bdd.and(equal(k, v, false), equal(k, v + 1, true)));
+			increment[k] = relation;
+		}
+	}
+
+	@Override
+	public boolean possibly(int predicateNo, int process_i_id, int process_j_id) {
+		int nodesBefore = bdd.getNodeCount();
+		int phi = buildPredicateStates(predicateNo, process_i_id, process_j_id);
+
+		// least fixpoint of reached = initial | image(reached), level by level
+		boolean found = false;
+		int frontier = bdd.and(initialStates, consistentStates);
+		int reached = frontier;
+		while (frontier != Bdd.FALSE && !found) {
+			found = bdd.and(frontier, phi) != Bdd.FALSE;
+			if (!found) {
+				frontier = bdd.and(bdd.and(image(frontier), consistentStates), bdd.not(reached));
+				reached = bdd.or(reached, frontier);
+			}
+		}
+		lastCheckSize = bdd.getNodeCount() - nodesBefore;
+		return found;
+	}
+
+	@Override
+	public boolean definitely(int predicateNo, int process_i_id, int process_j_id) {
+		int nodesBefore = bdd.getNodeCount();
+		int notPhi = bdd.and(consistentStates, bdd.not(buildPredicateStates(predicateNo, process_i_id, process_j_id)));
+
+		// states reachable from the initial state without passing phi
+		int frontier = bdd.and(initialStates, notPhi);
+		int reached = frontier;
+		while (frontier != Bdd.FALSE) {
+			frontier = bdd.and(bdd.and(image(frontier), notPhi), bdd.not(reached));
+			reached = bdd.or(reached, frontier);
+		}
+		lastCheckSize = bdd.getNodeCount() - nodesBefore;
+		return !bdd.evaluate(reached, finalAssignment);
+	}
+
+	/**
+	 * @return number of BDD nodes the last check allocated. Nodes are shared
+	 *         between checks, so a check that reuses the nodes of an earlier
+	 *         one reports fewer.
+	 */
+	@Override
+	public long getLastCheckSize() {
+		return lastCheckSize;
+	}
+
+	/**
+	 * @return number of BDD nodes allocated so far, including those of the
+	 *         consistent states and the successor relation built by the
+	 *         constructor
+	 */
+	public long getNodeCount() {
+		return bdd.getNodeCount();
+	}
+
+	/**
+	 * successors of all states in states: one process executes its next event
+	 */
+	private int image(int states) {
+		int result = Bdd.FALSE;
+		for (int k = 0; k < numberOfProcesses; k++) {
+			int next = bdd.exists(bdd.and(states, increment[k]), currentVariables[k]);
+			result = bdd.or(result, bdd.rename(next, primedToCurrent));
+		}
+		return result;
+	}
+
+	private int buildConsistentStates() {
+		int consistent = Bdd.TRUE;
+
+		for (int k = 0; k < numberOfProcesses; k++) {
+			if (sizes[k] < 1 << bits[k])
+				consistent = bdd.and(consistent, bdd.not(atLeast(k, sizes[k])));
+		}
+
+		// the event of process k must not know later events of process m than
+		// the state contains, see VectorClock.checkConsistency
+		for (int k = 0; k < numberOfProcesses; k++) {
+			for (int a = 0; a < sizes[k]; a++) {
+				int[] clock = processesMessages.get(k).get(a).getVectorClock().get();
+				for (int m = 0; m < numberOfProcesses; m++) {
+					if (m == k)
+						continue;
+					int threshold = 0;
+					while (threshold < sizes[m]
+							&& processesMessages.get(m).get(threshold).getVectorClock().get()[m] < clock[m])
+						threshold++;
+					if (threshold == 0)
+						continue;
+
+					int allowed = threshold < sizes[m] ? atLeast(m, threshold) : Bdd.FALSE;
+					consistent = bdd.and(consistent, bdd.or(bdd.not(equal(k, a, false)), allowed));
+				}
+			}
+		}
+		return consistent;
+	}
+
+	private int buildPredicateStates(int predicateNo, int process_i_id, int process_j_id) {
+		List<Message> messagesI = processesMessages.get(process_i_id);
+		List<Message> messagesJ = processesMessages.get(process_j_id);
+
+		int phi = Bdd.FALSE;
+		for (int a = 0; a < messagesI.size(); a++) {
+			int matching = Bdd.FALSE;
+			for (int b = 0; b < messagesJ.size(); b++)
+				if (Predicate.evaluate(predicateNo, messagesI.get(a), messagesJ.get(b)))
+					matching = bdd.or(matching, equal(process_j_id, b, false));
+			if (matching != Bdd.FALSE)
+				phi = bdd.or(phi, bdd.and(equal(process_i_id, a, false), matching));
+		}
+		return phi;
+	}
+
+	/**
+	 * @return index of process k equals value
+	 */
+	private int equal(int k, int value, boolean primed) {
+		int result = Bdd.TRUE;
+		for (int b = bits[k] - 1; b >= 0; b--) {
+			int x = bdd.variable(variable(k, b, primed));
+			result = bdd.and(result, bit(value, k, b) ? x : bdd.not(x));
+		}
+		return result;
+	}
+
+	/**
+	 * @return index of process k is greater than or equal to value
+	 */
+	private int atLeast(int k, int value) {
+		int result = Bdd.TRUE;
+		for (int b = bits[k] - 1; b >= 0; b--) {
+			int x = bdd.variable(variable(k, b, false));
+			result = bit(value, k, b) ? bdd.and(x, result) : bdd.or(x, result);
+		}
+		return result;
+	}
+
+	/**
+	 * bit b of process k, b = 0 is the most significant one
+	 */
+	private int variable(int k, int b, boolean primed) {
+		return 2 * (firstBit[k] + b) + (primed ? 1 : 0);
+	}
+
+	private boolean bit(int value, int k, int b) {
+		return (value >> (bits[k] - 1 - b) & 1) == 1;
+	}
+}
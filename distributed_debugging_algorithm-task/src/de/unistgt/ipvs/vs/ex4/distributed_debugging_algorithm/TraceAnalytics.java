@@ -0,0 +1,270 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * How parallel a run was, computed from the vector clocks in one pass over
+ * the events in causal order.
+ *
+ * The depth of an event is the length of the longest causal chain ending in
+ * it: 1 + the larger depth of the previous event of its process and of the
+ * latest event of every other process it knows about (component q of its
+ * clock is the index of that event of q). Events of the same depth are
+ * pairwise concurrent, so the number of events per depth is the concurrency
+ * width of that causal level, and the largest depth is the length of the
+ * critical path.
+ *
+ * This width counts events, not states: it is not the number of consistent
+ * cuts per level of the lattice (cuts with the same number of events), which
+ * can grow exponentially with the number of processes and is not computed
+ * here.
+ *
+ * The initial states are not events, they have depth 0. Time is linear in
+ * the size of the clocks. Memory is O(events), not O(processes): besides the
+ * trace, the pass keeps an int[] of the depth of every event, since the
+ * predecessors of an event can lie anywhere in the past, and the width of
+ * every level.
+ */
+public class TraceAnalytics {
+
+	private final int numberOfProcesses;
+	private final int numberOfEvents;
+
+	// depths[k][e] = depth of event e of process k
+	private final int[][] depths;
+	// widths[d] = number of events of depth d, d >= 1
+	private int[] widths = new int[16];
+	private int criticalPathLength;
+
+	private final int[] criticalPathProcesses;
+	private final int[] criticalPathEvents;
+
+	// receive wait time per process, null if the run was not monitored live
+	private long[] receiveWaitNanos;
+
+	public TraceAnalytics(List<List<Message>> processesMessages) {
+		numberOfProcesses = processesMessages.size();
+		depths = new int[numberOfProcesses][];
+		int events = 0;
+		for (int k = 0; k < numberOfProcesses; k++) {
+			depths[k] = new int[processesMessages.get(k).size()];
+			events += Math.max(processesMessages.get(k).size() - 1, 0);
+		}
+		numberOfEvents = events;
+
+		computeDepths(processesMessages);
+
+		criticalPathProcesses = new int[criticalPathLength];
+		criticalPathEvents = new int[criticalPathLength];
+		traceCriticalPath(processesMessages);
+	}
+
+	/**
+	 * analyze the run of a monitor whose processes terminated, including the
+	 * time they waited in receive
+	 */
+	public static TraceAnalytics analyze(Monitor monitor) {
+		List<List<Message>> processesMessages = monitor.getProcessesMessages();
+		TraceAnalytics analytics = new TraceAnalytics(processesMessages);
+		analytics.receiveWaitNanos = new long[processesMessages.size()];
+		for (int k = 0; k < processesMessages.size(); k++)
+			analytics.receiveWaitNanos[k] = monitor.getReceiveWaitNanos(k);
+		return analytics;
+	}
+
+	/**
+	 * Depth first over the processes: a process advances until its next event
+	 * knows about an event that is not done yet, then the process of that
+	 * event is pushed and advanced by one event before the blocked process
+	 * tries again. Every failed try is followed by an advance, so each clock
+	 * is read a constant number of times.
+	 */
+	private void computeDepths(List<List<Message>> processesMessages) {
+		int[] next = new int[numberOfProcesses];
+		for (int k = 0; k < numberOfProcesses; k++)
+			next[k] = 1;
+
+		int[] stack = new int[numberOfProcesses];
+		boolean[] onStack = new boolean[numberOfProcesses];
+		for (int k = 0; k < numberOfProcesses; k++) {
+			int size = 0;
+			stack[size++] = k;
+			onStack[k] = true;
+
+			while (size > 0) {
+				int p = stack[size - 1];
+				if (next[p] == processesMessages.get(p).size()) {
+					onStack[stack[--size]] = false;
+					continue;
+				}
+
+				int q = advance(processesMessages, next, p);
+				if (q < 0) {
+					// pushed for another process, let it try again
+					if (size > 1)
+						onStack[stack[--size]] = false;
+					continue;
+				}
+				if (onStack[q] || next[q] == processesMessages.get(q).size())
+					throw new IllegalStateException("event " + next[p] + " of process " + p
+							+ " knows about an event that was never logged");
+				stack[size++] = q;
+				onStack[q] = true;
+			}
+		}
+	}
+
+	/**
+	 * compute the depth of the next event of process k
+	 *
+	 * @return -1 if done, else a process whose events the next event knows
+	 *         about but are not done yet
+	 */
+	private int advance(List<List<Message>> processesMessages, int[] next, int k) {
+		int e = next[k];
+		int[] clock = processesMessages.get(k).get(e).getVectorClock().get();
+
+		int depth = depths[k][e - 1];
+		for (int q = 0; q < numberOfProcesses; q++) {
+			if (q == k || clock[q] == 0)
+				continue;
+			if (clock[q] >= next[q])
+				return q;
+			depth = Math.max(depth, depths[q][clock[q]]);
+		}
+		depth++;
+
+		depths[k][e] = depth;
+		if (depth >= widths.length)
+			widths = Arrays.copyOf(widths, Math.max(2 * widths.length, depth + 1));
+		widths[depth]++;
+		criticalPathLength = Math.max(criticalPathLength, depth);
+
+		next[k]++;
+		return -1;
+	}
+
+	/**
+	 * walk back from a deepest event, always to a predecessor of depth - 1
+	 */
+	private void traceCriticalPath(List<List<Message>> processesMessages) {
+		if (criticalPathLength == 0)
+			return;
+
+		int k = 0;
+		int e = 0;
+		for (int q = 0; q < numberOfProcesses; q++)
+			for (int f = 1; f < depths[q].length; f++)
+				if (depths[q][f] == criticalPathLength) {
+					k = q;
+					e = f;
+				}
+
+		for (int depth = criticalPathLength; depth > 0; depth--) {
+			criticalPathProcesses[depth - 1] = k;
+			criticalPathEvents[depth - 1] = e;
+			if (depth == 1)
+				break;
+
+			int[] clock = processesMessages.get(k).get(e).getVectorClock().get();
+			if (depths[k][e - 1] == depth - 1) {
+				e--;
+				continue;
+			}
+			for (int q = 0; q < numberOfProcesses; q++)
+				if (q != k && clock[q] > 0 && depths[q][clock[q]] == depth - 1) {
+					k = q;
+					e = clock[q];
+					break;
+				}
+		}
+	}
+
+	/**
+	 * @return number of events, initial states excluded
+	 */
+	public int getNumberOfEvents() {
+		return numberOfEvents;
+	}
+
+	/**
+	 * @return number of events on the longest causal chain
+	 */
+	public int getCriticalPathLength() {
+		return criticalPathLength;
+	}
+
+	/**
+	 * @return processes of the events on a longest causal chain, in causal
+	 *         order
+	 */
+	public int[] getCriticalPathProcesses() {
+		return criticalPathProcesses;
+	}
+
+	/**
+	 * @return indices of the events on a longest causal chain in the queues
+	 *         of getCriticalPathProcesses()
+	 */
+	public int[] getCriticalPathEvents() {
+		return criticalPathEvents;
+	}
+
+	public int getDepth(int processId, int event) {
+		return depths[processId][event];
+	}
+
+	/**
+	 * @return number of pairwise concurrent events of causal level depth,
+	 *         1 <= depth <= getCriticalPathLength()
+	 */
+	public int getWidth(int depth) {
+		return widths[depth];
+	}
+
+	public int getMaxWidth() {
+		int maxWidth = 0;
+		for (int depth = 1; depth <= criticalPathLength; depth++)
+			maxWidth = Math.max(maxWidth, widths[depth]);
+		return maxWidth;
+	}
+
+	/**
+	 * @return events per level of the critical path, 1 for a sequential run
+	 */
+	public double getAverageParallelism() {
+		return criticalPathLength == 0 ? 0 : (double) numberOfEvents / criticalPathLength;
+	}
+
+	/**
+	 * @return time process (processId) was blocked in receive, -1 if the run
+	 *         was not analyzed from a Monitor
+	 */
+	public long getReceiveWaitNanos(int processId) {
+		return receiveWaitNanos == null ? -1 : receiveWaitNanos[processId];
+	}
+
+	/**
+	 * analyze a generated run and print the metrics
+	 *
+	 * @param args
+	 *            [numberOfProcesses] [numberOfEvents]
+	 */
+	public static void main(String[] args) {
+		int numberOfProcesses = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int numberOfEvents = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+
+		List<List<Message>> processesMessages = new TraceGenerator(numberOfProcesses).generate(numberOfProcesses,
+				numberOfEvents);
+
+		long start = System.nanoTime();
+		TraceAnalytics analytics = new TraceAnalytics(processesMessages);
+		double millis = (System.nanoTime() - start) / 1e6;
+
+		System.out.printf("%d processes, %d events analyzed in %.1f ms%n", numberOfProcesses,
+				analytics.getNumberOfEvents(), millis);
+		System.out.printf("critical path: %d events, max width: %d, average parallelism: %.2f%n",
+				analytics.getCriticalPathLength(), analytics.getMaxWidth(), analytics.getAverageParallelism());
+	}
+}
@@ -0,0 +1,104 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks TraceAnalytics on a small run whose depths, widths and critical path
+ * are known:
+ *
+ * P0: e1 (send a) e2 e3
+ * P1: e1 e2 (receive a) e3 (send b)
+ * P2: e1 e2 (receive b)
+ *
+ * The longest causal chain is P1 e1, P1 e2, P1 e3, P2 e2 (P0 e1 would do as
+ * well for the first event, the trace back prefers the local predecessor).
+ */
+public class TraceAnalyticsTest {
+
+	public static void main(String[] args) {
+		boolean testResult = testHandBuiltRun();
+
+		if (testResult)
+			System.out.println("Test succeeded!");
+		else
+			System.out.println("Test failed!");
+	}
+
+	private static boolean testHandBuiltRun() {
+		System.out.println("Check depths, widths and critical path of a hand built run");
+
+		int numberOfProcesses = 3;
+		List<List<Message>> processesMessages = new ArrayList<>();
+		VectorClock[] clocks = new VectorClock[numberOfProcesses];
+		for (int k = 0; k < numberOfProcesses; k++) {
+			clocks[k] = new VectorClock(k, numberOfProcesses);
+			List<Message> messages = new ArrayList<>();
+			messages.add(new Message(new VectorClock(clocks[k]), 0));
+			processesMessages.add(messages);
+		}
+
+		event(processesMessages, clocks, 0, -1, 0);
+		event(processesMessages, clocks, 1, -1, 0);
+		event(processesMessages, clocks, 2, -1, 0);
+		event(processesMessages, clocks, 1, 0, 1);
+		event(processesMessages, clocks, 0, -1, 0);
+		event(processesMessages, clocks, 0, -1, 0);
+		event(processesMessages, clocks, 1, -1, 0);
+		event(processesMessages, clocks, 2, 1, 3);
+
+		TraceAnalytics analytics = new TraceAnalytics(processesMessages);
+
+		int[][] expectedDepths = { { 0, 1, 2, 3 }, { 0, 1, 2, 3 }, { 0, 1, 4 } };
+		boolean passed = true;
+		for (int k = 0; k < numberOfProcesses; k++)
+			for (int e = 1; e < expectedDepths[k].length; e++)
+				if (analytics.getDepth(k, e) != expectedDepths[k][e]) {
+					System.out.printf("depth of event %d of process %d: %d, expected %d%n", e, k,
+							analytics.getDepth(k, e), expectedDepths[k][e]);
+					passed = false;
+				}
+
+		int[] expectedWidths = { 3, 2, 2, 1 };
+		for (int depth = 1; depth <= expectedWidths.length; depth++)
+			if (analytics.getWidth(depth) != expectedWidths[depth - 1]) {
+				System.out.printf("width of level %d: %d, expected %d%n", depth, analytics.getWidth(depth),
+						expectedWidths[depth - 1]);
+				passed = false;
+			}
+
+		if (analytics.getNumberOfEvents() != 8 || analytics.getCriticalPathLength() != 4
+				|| analytics.getMaxWidth() != 3 || analytics.getAverageParallelism() != 2.0) {
+			System.out.printf("%d events, critical path %d, max width %d, parallelism %.2f%n",
+					analytics.getNumberOfEvents(), analytics.getCriticalPathLength(), analytics.getMaxWidth(),
+					analytics.getAverageParallelism());
+			passed = false;
+		}
+
+		if (!Arrays.equals(analytics.getCriticalPathProcesses(), new int[] { 1, 1, 1, 2 })
+				|| !Arrays.equals(analytics.getCriticalPathEvents(), new int[] { 1, 2, 3, 2 })) {
+			System.out.println("critical path: processes " + Arrays.toString(analytics.getCriticalPathProcesses())
+					+ ", events " + Arrays.toString(analytics.getCriticalPathEvents()));
+			passed = false;
+		}
+
+		if (analytics.getReceiveWaitNanos(0) != -1) {
+			System.out.println("receive wait time of a run that was not monitored");
+			passed = false;
+		}
+		return passed;
+	}
+
+	/**
+	 * log the next event of process k, a receive of the message sent by event
+	 * senderEvent of process sender if sender >= 0
+	 */
+	private static void event(List<List<Message>> processesMessages, VectorClock[] clocks, int k, int sender,
+			int senderEvent) {
+		if (sender >= 0)
+			clocks[k].update(processesMessages.get(sender).get(senderEvent).getVectorClock());
+		clocks[k].increment();
+		processesMessages.get(k).add(new Message(new VectorClock(clocks[k]), 0));
+	}
+}
@@ -0,0 +1,93 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates random runs in the form the Monitor stores them: per process the
+ * initial state followed by one message per event, every event increments the
+ * clock of its process. An event is either a local step or the receive of the
+ * current state of another process.
+ */
+public class TraceGenerator {
+
+	private final Random random;
+
+	// probability that an event is a receive
+	private double receiveProbability = 0.3;
+
+	// local variables are drawn from [0, maxLocalVariable]
+	private int maxLocalVariable = 40;
+
+	private VectorClock.Mode clockMode = VectorClock.Mode.VECTOR;
+
+	public TraceGenerator(long seed) {
+		random = new Random(seed);
+	}
+
+	public void setReceiveProbability(double receiveProbability) {
+		this.receiveProbability = receiveProbability;
+	}
+
+	public void setMaxLocalVariable(int maxLocalVariable) {
+		this.maxLocalVariable = maxLocalVariable;
+	}
+
+	/**
+	 * DIRECT_DEPENDENCY runs have to go through a Monitor (see replay) or
+	 * CausalityReconstructor before the lattice engines can read them
+	 */
+	public void setClockMode(VectorClock.Mode clockMode) {
+		this.clockMode = clockMode;
+	}
+
+	/**
+	 * @param numberOfProcesses
+	 * @param numberOfEvents
+	 *            events of all processes together, initial states excluded
+	 * @return the event queues Q1, Q2, ..., Qn
+	 */
+	public List<List<Message>> generate(int numberOfProcesses, int numberOfEvents) {
+		List<List<Message>> processesMessages = new ArrayList<>(numberOfProcesses);
+		VectorClock[] clocks = new VectorClock[numberOfProcesses];
+		int[] localVariables = new int[numberOfProcesses];
+
+		for (int k = 0; k < numberOfProcesses; k++) {
+			clocks[k] = new VectorClock(clockMode, k, numberOfProcesses);
+			List<Message> messages = new ArrayList<>();
+			messages.add(new Message(new VectorClock(clocks[k]), 0));
+			processesMessages.add(messages);
+		}
+
+		for (int e = 0; e < numberOfEvents; e++) {
+			int k = random.nextInt(numberOfProcesses);
+
+			if (numberOfProcesses > 1 && random.nextDouble() < receiveProbability) {
+				int sender = random.nextInt(numberOfProcesses - 1);
+				if (sender >= k)
+					sender++;
+				clocks[k].update(clocks[sender]);
+				localVariables[k] = (localVariables[k] + localVariables[sender]) % (maxLocalVariable + 1);
+			} else {
+				localVariables[k] = random.nextInt(maxLocalVariable + 1);
+			}
+			clocks[k].increment();
+
+			processesMessages.get(k).add(new Message(new VectorClock(clocks[k]), localVariables[k]));
+		}
+
+		return processesMessages;
+	}
+
+	/**
+	 * report a generated run to a monitor and terminate all its processes
+	 */
+	public static void replay(List<List<Message>> processesMessages, Monitor monitor) {
+		for (int k = 0; k < processesMessages.size(); k++)
+			for (Message message : processesMessages.get(k))
+				monitor.receiveMessage(k, message);
+		for (int k = 0; k < processesMessages.size(); k++)
+			monitor.processTerminated(k);
+	}
+}
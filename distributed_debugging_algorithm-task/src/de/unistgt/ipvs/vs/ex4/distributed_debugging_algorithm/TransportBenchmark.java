@@ -0,0 +1,111 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Compares the in-memory send/receive of AbstractProcess with the socket
+ * transport over loopback: round trip latency of a ping pong between two
+ * processes and throughput of events reported to the monitor.
+ */
+public class TransportBenchmark {
+
+	/**
+	 * process 0 sends a message and waits for the answer of process 1
+	 */
+	private static class PingPongProcess extends AbstractProcess {
+		private final int rounds;
+		private final VectorClock vectorClock;
+		long nanos;
+
+		PingPongProcess(Monitor monitor, AbstractProcess[] processes, int Id, int rounds) {
+			super(monitor, processes, Id);
+			this.rounds = rounds;
+			vectorClock = new VectorClock(this.Id, this.numberOfProcesses);
+		}
+
+		@Override
+		public void run() {
+			int other = 1 - this.Id;
+			long start = System.nanoTime();
+			for (int round = 0; round < rounds; round++) {
+				if (this.Id == 0) {
+					send(other, new Message(new VectorClock(vectorClock), round));
+					vectorClock.update(receive(other).getVectorClock());
+				} else {
+					vectorClock.update(receive(other).getVectorClock());
+					send(other, new Message(new VectorClock(vectorClock), round));
+				}
+				vectorClock.increment();
+			}
+			nanos = System.nanoTime() - start;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		int inMemoryRounds = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int socketRounds = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		int events = args.length > 2 ? Integer.parseInt(args[2]) : 1000000;
+
+		System.out.printf("%-22s %10s %14s %14s%n", "path", "count", "us/op", "ops/s");
+
+		report("in-memory round trip", inMemoryRounds, pingPong(inMemoryRounds, null));
+
+		Monitor monitor = new Monitor(2);
+		TransportHub hub = new TransportHub(monitor, 2, 0);
+		Thread hubThread = new Thread(hub, "transport-hub");
+		hubThread.start();
+		TransportClient client = new TransportClient(new InetSocketAddress("localhost", hub.getPort()), 2);
+		client.register(0);
+		client.register(1);
+
+		pingPong(socketRounds / 10, client); // warm up
+		report("socket round trip", socketRounds, pingPong(socketRounds, client));
+
+		Message message = new Message(new VectorClock(0, 2), 1);
+		Monitor local = new Monitor(2);
+		long start = System.nanoTime();
+		for (int e = 0; e < events; e++)
+			local.receiveMessage(0, message);
+		report("in-memory event", events, System.nanoTime() - start);
+
+		Monitor remote = new RemoteMonitor(2, client);
+		start = System.nanoTime();
+		for (int e = 0; e < events; e++)
+			remote.receiveMessage(0, message);
+		remote.processTerminated(0);
+		remote.processTerminated(1);
+		while (!monitor.allProcessesTerminated())
+			Thread.sleep(1);
+		report("socket event", events, System.nanoTime() - start);
+
+		client.close();
+		hub.close();
+		hubThread.join();
+	}
+
+	private static long pingPong(int rounds, TransportClient client) throws InterruptedException {
+		Monitor monitor = new Monitor(2);
+		AbstractProcess[] processes = new AbstractProcess[2];
+		PingPongProcess ping = new PingPongProcess(monitor, processes, 0, rounds);
+		PingPongProcess pong = new PingPongProcess(monitor, processes, 1, rounds);
+		processes[0] = ping;
+		processes[1] = pong;
+		if (client != null) {
+			ping.setTransport(client);
+			pong.setTransport(client);
+		}
+
+		Thread pingThread = new Thread(ping);
+		Thread pongThread = new Thread(pong);
+		pingThread.start();
+		pongThread.start();
+		pingThread.join();
+		pongThread.join();
+		return ping.nanos;
+	}
+
+	private static void report(String path, int count, long nanos) {
+		double microsPerOp = nanos / 1e3 / count;
+		System.out.printf("%-22s %10d %14.2f %14.0f%n", path, count, microsPerOp, 1e6 / microsPerOp);
+	}
+}
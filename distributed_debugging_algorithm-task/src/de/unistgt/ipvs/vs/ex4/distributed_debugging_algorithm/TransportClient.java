@@ -0,0 +1,174 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Process side of the socket transport: one connection to a TransportHub per
+ * JVM, shared by all processes of the JVM. With a client set
+ * (AbstractProcess.setTransport) send and receive keep their semantics, send
+ * still waits for the ack of the receiver, but the message travels as a DATA
+ * frame through the hub instead of being written into the receiver object.
+ */
+public class TransportClient implements Runnable {
+
+	private final SocketChannel channel;
+	private final Object writeLock = new Object();
+	// grows for frames of more than 64 KB
+	private ByteBuffer writeBuffer = ByteBuffer.allocate(64 * 1024);
+
+	// inbox[to][from]: DATA frames not yet received by process (to)
+	private final BlockingQueue<Message>[][] inbox;
+	// acks[from][to]: ACK frames for process (from)
+	private final Semaphore[][] acks;
+
+	private final Thread reader;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public TransportClient(InetSocketAddress hubAddress, int numberOfProcesses) throws IOException {
+		inbox = new BlockingQueue[numberOfProcesses][numberOfProcesses];
+		acks = new Semaphore[numberOfProcesses][numberOfProcesses];
+		for (int i = 0; i < numberOfProcesses; i++)
+			for (int j = 0; j < numberOfProcesses; j++) {
+				inbox[i][j] = new LinkedBlockingQueue<>();
+				acks[i][j] = new Semaphore(0);
+			}
+
+		channel = SocketChannel.open(hubAddress);
+		channel.socket().setTcpNoDelay(true);
+
+		reader = new Thread(this, "transport-client");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * announce a process hosted in this JVM to the hub
+	 */
+	public void register(int processId) {
+		write(WireFormat.HELLO, processId, processId, null);
+	}
+
+	/**
+	 * send a message from process (from) to process (to) and wait for ack
+	 */
+	public void send(int from, int to, Message message) {
+		write(WireFormat.DATA, from, to, message);
+		acks[from][to].acquireUninterruptibly();
+	}
+
+	/**
+	 * receive the next message from process (from) to process (to) and ack it
+	 */
+	public Message receive(int to, int from) {
+		Message message;
+		try {
+			message = inbox[to][from].take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while receiving", e);
+		}
+		write(WireFormat.ACK, to, from, null);
+		return message;
+	}
+
+	void event(int processId, Message message) {
+		write(WireFormat.EVENT, processId, -1, message);
+	}
+
+	void terminated(int processId) {
+		write(WireFormat.TERMINATED, processId, -1, null);
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private void write(byte type, int from, int to, Message message) {
+		int size = WireFormat.frameSize(message);
+		if (size > WireFormat.MAX_FRAME_SIZE)
+			throw new IllegalArgumentException("frame of " + size + " bytes exceeds the limit of the transport");
+		synchronized (writeLock) {
+			if (size > writeBuffer.capacity())
+				writeBuffer = ByteBuffer.allocate(size);
+			writeBuffer.clear();
+			WireFormat.writeFrame(writeBuffer, type, from, to, message);
+			writeBuffer.flip();
+			try {
+				while (writeBuffer.hasRemaining())
+					channel.write(writeBuffer);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * reader thread: dispatch DATA and ACK frames from the hub
+	 */
+	@Override
+	public void run() {
+		ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		try {
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				int size;
+				while ((size = WireFormat.completeFrameSize(buffer)) > 0) {
+					int from = WireFormat.from(buffer);
+					int to = WireFormat.to(buffer);
+					if (WireFormat.type(buffer) == WireFormat.DATA)
+						inbox[to][from].add(WireFormat.message(buffer, inbox.length));
+					else if (WireFormat.type(buffer) == WireFormat.ACK)
+						acks[to][from].release();
+					buffer.position(buffer.position() + size);
+				}
+				buffer = WireFormat.compact(buffer);
+			}
+		} catch (IOException e) {
+			if (channel.isOpen())
+				e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Run one of the processes of DebugTest in this JVM against a hub started
+	 * with TransportHub.main.
+	 *
+	 * @param args
+	 *            port numberOfProcesses processId [VECTOR | DIRECT_DEPENDENCY]
+	 */
+	public static void main(String[] args) throws Exception {
+		int port = Integer.parseInt(args[0]);
+		int numberOfProcesses = Integer.parseInt(args[1]);
+		int processId = Integer.parseInt(args[2]);
+		VectorClock.Mode clockMode = args.length > 3 ? VectorClock.Mode.valueOf(args[3]) : VectorClock.Mode.VECTOR;
+
+		TransportClient client = new TransportClient(new InetSocketAddress("localhost", port), numberOfProcesses);
+		client.register(processId);
+
+		Monitor monitor = new RemoteMonitor(numberOfProcesses, clockMode, client);
+		AbstractProcess[] processes = new AbstractProcess[numberOfProcesses];
+		switch (processId) {
+		case 0:
+			processes[0] = new Process1(monitor, processes, 0);
+			break;
+		case 1:
+			processes[1] = new Process2(monitor, processes, 1);
+			break;
+		case 2:
+			processes[2] = new Process3(monitor, processes, 2);
+			break;
+		default:
+			throw new IllegalArgumentException("no process " + processId);
+		}
+		processes[processId].setTransport(client);
+		processes[processId].run();
+		client.close();
+	}
+}
@@ -0,0 +1,254 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Monitor side of the socket transport. Processes in other JVMs connect to the
+ * hub (see TransportClient); the hub feeds their EVENT and TERMINATED frames
+ * into a local Monitor and routes DATA and ACK frames between the processes.
+ * All connections are served by one thread with non-blocking channels.
+ *
+ * A connection that sends a malformed frame (unknown type, process id out of
+ * range, more than WireFormat.MAX_FRAME_SIZE bytes) is closed, the other
+ * connections are not affected. Frames for a process whose connection closed
+ * are kept until it connects again.
+ */
+public class TransportHub implements Runnable {
+
+	// initial size, grows for larger frames
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	private final Monitor monitor;
+	private final Selector selector;
+	private final ServerSocketChannel serverChannel;
+
+	// connection of each process, null until its HELLO frame arrived
+	private final Connection[] processConnections;
+	// frames for processes that did not connect yet
+	private final List<List<ByteBuffer>> pendingFrames;
+
+	private volatile boolean running = true;
+
+	private class Connection {
+		final SocketChannel channel;
+		ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+		SelectionKey key;
+
+		Connection(SocketChannel channel) {
+			this.channel = channel;
+		}
+	}
+
+	/**
+	 * @param monitor
+	 * @param port
+	 *            0 picks a free port, see getPort()
+	 */
+	public TransportHub(Monitor monitor, int numberOfProcesses, int port) throws IOException {
+		this.monitor = monitor;
+		processConnections = new Connection[numberOfProcesses];
+		pendingFrames = new ArrayList<>(numberOfProcesses);
+		for (int i = 0; i < numberOfProcesses; i++)
+			pendingFrames.add(new ArrayList<ByteBuffer>());
+
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	public int getPort() throws IOException {
+		return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+	}
+
+	public void close() {
+		running = false;
+		selector.wakeup();
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (running) {
+				selector.select();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid())
+						continue;
+					if (key.isAcceptable())
+						accept();
+					else {
+						Connection connection = (Connection) key.attachment();
+						try {
+							if (key.isReadable())
+								read(connection);
+							if (key.isValid() && key.isWritable())
+								write(connection);
+						} catch (IOException e) {
+							closeConnection(connection);
+						} catch (RuntimeException e) {
+							System.err.println("closing connection after " + e);
+							closeConnection(connection);
+						}
+					}
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			try {
+				for (SelectionKey key : selector.keys())
+					key.channel().close();
+				selector.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel = serverChannel.accept();
+		if (channel == null)
+			return;
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		Connection connection = new Connection(channel);
+		connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+	}
+
+	private void read(Connection connection) throws IOException {
+		ByteBuffer buffer = connection.readBuffer;
+		if (connection.channel.read(buffer) < 0)
+			throw new IOException("connection closed");
+
+		buffer.flip();
+		int size;
+		while ((size = WireFormat.completeFrameSize(buffer)) > 0) {
+			handleFrame(connection, buffer, size);
+			buffer.position(buffer.position() + size);
+		}
+		connection.readBuffer = WireFormat.compact(buffer);
+	}
+
+	/**
+	 * close the channel and forget the processes it hosted
+	 */
+	private void closeConnection(Connection connection) {
+		connection.key.cancel();
+		try {
+			connection.channel.close();
+		} catch (IOException e) {
+			// nothing left to release
+		}
+		for (int k = 0; k < processConnections.length; k++)
+			if (processConnections[k] == connection)
+				processConnections[k] = null;
+	}
+
+	private void handleFrame(Connection connection, ByteBuffer buffer, int size) {
+		switch (WireFormat.type(buffer)) {
+		case WireFormat.HELLO:
+			int processId = checkProcessId(WireFormat.from(buffer));
+			processConnections[processId] = connection;
+			for (ByteBuffer frame : pendingFrames.get(processId))
+				enqueue(connection, frame);
+			pendingFrames.get(processId).clear();
+			break;
+		case WireFormat.DATA:
+		case WireFormat.ACK:
+			// forward the frame unchanged
+			ByteBuffer frame = ByteBuffer.allocate(size);
+			frame.put(buffer.array(), buffer.arrayOffset() + buffer.position(), size);
+			frame.flip();
+			route(checkProcessId(WireFormat.to(buffer)), frame);
+			break;
+		case WireFormat.EVENT:
+			monitor.receiveMessage(checkProcessId(WireFormat.from(buffer)), WireFormat.message(buffer, processConnections.length));
+			break;
+		case WireFormat.TERMINATED:
+			monitor.processTerminated(checkProcessId(WireFormat.from(buffer)));
+			break;
+		default:
+			throw new IllegalStateException("unknown frame type " + WireFormat.type(buffer));
+		}
+	}
+
+	private int checkProcessId(int processId) {
+		if (processId < 0 || processId >= processConnections.length)
+			throw new IllegalStateException("frame for unknown process " + processId);
+		return processId;
+	}
+
+	/**
+	 * send a frame to process (to), or keep it until the process connects
+	 */
+	private void route(int to, ByteBuffer frame) {
+		Connection connection = processConnections[to];
+		if (connection != null && !connection.key.isValid()) {
+			closeConnection(connection);
+			connection = null;
+		}
+		if (connection != null)
+			enqueue(connection, frame);
+		else
+			pendingFrames.get(to).add(frame);
+	}
+
+	private void enqueue(Connection connection, ByteBuffer frame) {
+		connection.writeQueue.add(frame);
+		connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+	}
+
+	private void write(Connection connection) throws IOException {
+		while (!connection.writeQueue.isEmpty()) {
+			ByteBuffer frame = connection.writeQueue.peek();
+			connection.channel.write(frame);
+			if (frame.hasRemaining())
+				return; // socket buffer full, wait for the next OP_WRITE
+			connection.writeQueue.poll();
+		}
+		connection.key.interestOps(SelectionKey.OP_READ);
+	}
+
+	/**
+	 * Run the monitor of a run whose processes are started with
+	 * TransportClient.main in other JVMs, in either clock mode.
+	 *
+	 * @param args
+	 *            port numberOfProcesses
+	 */
+	public static void main(String[] args) throws Exception {
+		int port = Integer.parseInt(args[0]);
+		int numberOfProcesses = Integer.parseInt(args[1]);
+
+		Monitor monitor = new Monitor(numberOfProcesses);
+		TransportHub hub = new TransportHub(monitor, numberOfProcesses, port);
+		Thread hubThread = new Thread(hub, "transport-hub");
+		hubThread.start();
+		System.out.printf("hub listening on port %d%n", hub.getPort());
+
+		Thread monitorThread = new Thread(monitor);
+		monitorThread.start();
+		monitorThread.join();
+		hub.close();
+
+		System.out.println("possibly:   " + Arrays.toString(monitor.getPossiblyTruePredicatesIndex()));
+		System.out.println("definitely: " + Arrays.toString(monitor.getDefinitelyTruePredicatesIndex()));
+	}
+}
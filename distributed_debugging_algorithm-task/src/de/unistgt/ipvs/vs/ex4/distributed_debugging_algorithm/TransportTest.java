@@ -0,0 +1,90 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Part (b) of DebugTest with every process in its own JVM: the processes run
+ * TransportClient.main against a TransportHub in this JVM, whose Monitor is
+ * created as in TransportHub.main. Checked with clients in both clock modes.
+ */
+public class TransportTest {
+
+	public static void main(String[] args) throws Exception {
+		boolean testResult = testSeparateJvms(VectorClock.Mode.VECTOR)
+				& testSeparateJvms(VectorClock.Mode.DIRECT_DEPENDENCY);
+
+		if (testResult)
+			System.out.println("Test succeeded!");
+		else
+			System.out.println("Test failed!");
+	}
+
+	private static boolean testSeparateJvms(VectorClock.Mode clockMode) throws Exception {
+		System.out.println("Check processes in separate JVMs, " + clockMode + " clocks");
+
+		int numberOfProcesses = 2;
+		Monitor monitor = new Monitor(numberOfProcesses);
+		TransportHub hub = new TransportHub(monitor, numberOfProcesses, 0);
+		Thread hubThread = new Thread(hub, "transport-hub");
+		hubThread.setDaemon(true);
+		hubThread.start();
+
+		Process[] clients = new Process[numberOfProcesses];
+		for (int k = 0; k < numberOfProcesses; k++)
+			clients[k] = startClient(hub.getPort(), numberOfProcesses, k, clockMode);
+
+		boolean passed = true;
+		for (Process client : clients)
+			if (!client.waitFor(60, TimeUnit.SECONDS) || client.exitValue() != 0) {
+				client.destroyForcibly();
+				passed = false;
+			}
+		if (!passed) {
+			System.out.println("a process failed");
+			hub.close();
+			return false;
+		}
+
+		monitor.run();
+		hub.close();
+		hubThread.join();
+
+		// checking ---------------
+
+		boolean[] possiblyTruePredicatesIndex = monitor.getPossiblyTruePredicatesIndex();
+		boolean[] definitelyTruePredicatesIndex = monitor.getDefinitelyTruePredicatesIndex();
+
+		// predicate0
+		if (possiblyTruePredicatesIndex[0] != true)
+			return false;
+		if (definitelyTruePredicatesIndex[0] != true)
+			return false;
+
+		// predicate1
+		if (possiblyTruePredicatesIndex[1] != true)
+			return false;
+		if (definitelyTruePredicatesIndex[1] != false)
+			return false;
+
+		// predicate2
+		if (possiblyTruePredicatesIndex[2] != false)
+			return false;
+		if (definitelyTruePredicatesIndex[2] != false)
+			return false;
+
+		return true;
+	}
+
+	private static Process startClient(int port, int numberOfProcesses, int processId, VectorClock.Mode clockMode)
+			throws IOException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				TransportClient.class.getName(), Integer.toString(port), Integer.toString(numberOfProcesses),
+				Integer.toString(processId), clockMode.name());
+		builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+		builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+		return builder.start();
+	}
+}
@@ -5,24 +5,123 @@ import javax.swing.plaf.basic.BasicInternalFrameTitlePane.MaximizeAction;
 //you are not allowed to change this class structure
 public class VectorClock {
 
+	/**
+	 * What a clock carries on events and messages
+	 */
+	public enum Mode {
+		/**
+		 * the full vector, one int per process
+		 */
+		VECTOR,
+		/**
+		 * the own counter and the one event of another process the event
+		 * depends on directly (its latest receive), three ints for any number
+		 * of processes. The Monitor rebuilds the vectors from its queues, see
+		 * CausalityReconstructor.
+		 */
+		DIRECT_DEPENDENCY
+	}
+
+	// null for a DIRECT_DEPENDENCY clock until the Monitor expanded it
 	protected int[] vectorClock;
 	private int processId;
 	private int numberOfProcesses;
 
+	private Mode mode;
+	// DIRECT_DEPENDENCY only: own counter, and the latest event of another
+	// process this event received from (dependencyProcessId -1 if none)
+	private int counter;
+	private int dependencyProcessId = -1;
+	private int dependencyCounter;
+	// receive since the last increment, becomes the dependency of the next event
+	private int pendingProcessId = -1;
+	private int pendingCounter;
+
 	public VectorClock(int processId, int numberOfProcesses) {
-		vectorClock = new int[numberOfProcesses];
+		this(Mode.VECTOR, processId, numberOfProcesses);
+	}
+
+	public VectorClock(Mode mode, int processId, int numberOfProcesses) {
+		if (mode == Mode.VECTOR)
+			vectorClock = new int[numberOfProcesses];
+		this.mode = mode;
 		this.numberOfProcesses = numberOfProcesses;
 		this.processId = processId;
 	}
 
+	/**
+	 * a DIRECT_DEPENDENCY clock as it was sent, see WireFormat
+	 */
+	VectorClock(int processId, int numberOfProcesses, int counter, int dependencyProcessId, int dependencyCounter) {
+		this(Mode.DIRECT_DEPENDENCY, processId, numberOfProcesses);
+		this.counter = counter;
+		this.dependencyProcessId = dependencyProcessId;
+		this.dependencyCounter = dependencyCounter;
+	}
+
 	VectorClock(VectorClock other) {
-		vectorClock = other.vectorClock.clone();
+		vectorClock = other.vectorClock == null ? null : other.vectorClock.clone();
 		processId = other.processId;
 		numberOfProcesses = other.numberOfProcesses;
 
+		mode = other.mode;
+		counter = other.counter;
+		dependencyProcessId = other.dependencyProcessId;
+		dependencyCounter = other.dependencyCounter;
+		pendingProcessId = other.pendingProcessId;
+		pendingCounter = other.pendingCounter;
+	}
+
+	int getProcessId() {
+		return processId;
+	}
+
+	int getNumberOfProcesses() {
+		return numberOfProcesses;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * @return the own component, the number of events of the process so far
+	 */
+	int getCounter() {
+		return mode == Mode.VECTOR ? vectorClock[processId] : counter;
+	}
+
+	int getDependencyProcessId() {
+		return dependencyProcessId;
+	}
+
+	int getDependencyCounter() {
+		return dependencyCounter;
+	}
+
+	/**
+	 * @return false for a DIRECT_DEPENDENCY clock the Monitor did not expand yet
+	 */
+	boolean isExpanded() {
+		return vectorClock != null;
+	}
+
+	/**
+	 * set the full vector of a DIRECT_DEPENDENCY clock, see
+	 * CausalityReconstructor
+	 */
+	void expand(int[] vectorClock) {
+		this.vectorClock = vectorClock;
 	}
 
 	public void increment() {
+		if (mode == Mode.DIRECT_DEPENDENCY) {
+			counter++;
+			dependencyProcessId = pendingProcessId;
+			dependencyCounter = pendingCounter;
+			pendingProcessId = -1;
+			return;
+		}
 		vectorClock[processId] += 1;
 
 	}
@@ -30,6 +129,9 @@ public class VectorClock {
 	public int[] get() {
 		// TODO
 		// Complete a code to return the vectorClock value
+		if (vectorClock == null)
+			throw new IllegalStateException("direct dependency clock of process " + processId
+					+ " is not expanded, the Monitor does this when the analysis starts");
 		return vectorClock;
 
 	}
@@ -39,6 +141,17 @@ public class VectorClock {
 		/*
 		 * Implement Supermum operation
 		 */
+		if (other.mode != mode)
+			throw new IllegalArgumentException("cannot merge a " + other.mode + " clock into a " + mode + " clock");
+		if (mode == Mode.DIRECT_DEPENDENCY) {
+			if (pendingProcessId >= 0 && pendingProcessId != other.processId)
+				throw new IllegalStateException(
+						"a direct dependency clock records one receive per event, increment after each receive");
+			if (pendingProcessId < 0 || other.counter > pendingCounter)
+				pendingCounter = other.counter;
+			pendingProcessId = other.processId;
+			return;
+		}
 		int[] otherArray = other.get();
 
 		for(int index = 0; index < numberOfProcesses; index++){
@@ -50,9 +163,10 @@ public class VectorClock {
 
 	public boolean checkConsistency(int otherProcessId, VectorClock other) {
 		int[] otherArray = other.get();
+		int[] ownArray = get();
 
-		boolean firstCon =  otherArray[otherProcessId] >= vectorClock[otherProcessId];
-		boolean secondCon = vectorClock[processId] >= otherArray[processId];
+		boolean firstCon =  otherArray[otherProcessId] >= ownArray[otherProcessId];
+		boolean secondCon = ownArray[processId] >= otherArray[processId];
 
 
 		return firstCon && secondCon;
@@ -0,0 +1,164 @@
+package de.unistgt.ipvs.vs.ex4.distributed_debugging_algorithm;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary framing of the socket transport (big endian):
+ *
+ * <pre>
+ * frame   = int length | byte type | int from | int to | [message]
+ * message = int localVariable | int clockProcessId | int n | clock
+ * clock   = n * int vector                                   (VECTOR, n >= 0)
+ *         | int counter | int dependencyProcessId | int dependencyCounter
+ *                                                              (DIRECT_DEPENDENCY, n = -1 - numberOfProcesses)
+ * </pre>
+ *
+ * length counts the bytes after the length field. DATA frames travel from
+ * process (from) to process (to), ACK frames back; EVENT and TERMINATED frames
+ * go to the monitor and only use from. Frames of more than MAX_FRAME_SIZE
+ * bytes are rejected as corrupt, and so are messages whose clock is not one
+ * of the run or does not fit into their frame.
+ */
+final class WireFormat {
+
+	static final byte HELLO = 1;
+	static final byte DATA = 2;
+	static final byte ACK = 3;
+	static final byte EVENT = 4;
+	static final byte TERMINATED = 5;
+
+	// length, type, from, to
+	static final int HEADER_SIZE = 4 + 1 + 4 + 4;
+
+	// a VECTOR clock of about four million processes
+	static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+	private WireFormat() {
+	}
+
+	static int frameSize(Message message) {
+		int size = HEADER_SIZE;
+		if (message != null) {
+			VectorClock vectorClock = message.getVectorClock();
+			if (vectorClock.getMode() == VectorClock.Mode.DIRECT_DEPENDENCY)
+				size += 3 * 4 + 3 * 4;
+			else
+				size += 3 * 4 + 4 * vectorClock.get().length;
+		}
+		return size;
+	}
+
+	static void writeFrame(ByteBuffer buffer, byte type, int from, int to, Message message) {
+		buffer.putInt(frameSize(message) - 4);
+		buffer.put(type);
+		buffer.putInt(from);
+		buffer.putInt(to);
+		if (message != null) {
+			VectorClock vectorClock = message.getVectorClock();
+			buffer.putInt(message.getLocalVariable());
+			buffer.putInt(vectorClock.getProcessId());
+			if (vectorClock.getMode() == VectorClock.Mode.DIRECT_DEPENDENCY) {
+				buffer.putInt(-1 - vectorClock.getNumberOfProcesses());
+				buffer.putInt(vectorClock.getCounter());
+				buffer.putInt(vectorClock.getDependencyProcessId());
+				buffer.putInt(vectorClock.getDependencyCounter());
+				return;
+			}
+			int[] clock = vectorClock.get();
+			buffer.putInt(clock.length);
+			for (int value : clock)
+				buffer.putInt(value);
+		}
+	}
+
+	static ByteBuffer encode(byte type, int from, int to, Message message) {
+		ByteBuffer buffer = ByteBuffer.allocate(frameSize(message));
+		writeFrame(buffer, type, from, to, message);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * @return size of the complete frame at the position of buffer, or -1 if
+	 *         the buffer does not hold a complete frame yet
+	 */
+	static int completeFrameSize(ByteBuffer buffer) {
+		if (buffer.remaining() < 4)
+			return -1;
+		int size = buffer.getInt(buffer.position()) + 4;
+		if (size < HEADER_SIZE || size > MAX_FRAME_SIZE)
+			throw new IllegalStateException("corrupt frame of " + size + " bytes");
+		return buffer.remaining() >= size ? size : -1;
+	}
+
+	/**
+	 * prepare a read buffer for the next read after its complete frames were
+	 * consumed, see ByteBuffer.compact()
+	 *
+	 * @return buffer, or a larger buffer holding the rest of buffer if the
+	 *         incomplete frame at its position does not fit into it
+	 */
+	static ByteBuffer compact(ByteBuffer buffer) {
+		if (buffer.remaining() >= 4) {
+			int size = buffer.getInt(buffer.position()) + 4;
+			if (size > buffer.capacity()) {
+				ByteBuffer larger = ByteBuffer.allocate(size);
+				larger.put(buffer);
+				return larger;
+			}
+		}
+		buffer.compact();
+		return buffer;
+	}
+
+	static byte type(ByteBuffer frame) {
+		return frame.get(frame.position() + 4);
+	}
+
+	static int from(ByteBuffer frame) {
+		return frame.getInt(frame.position() + 5);
+	}
+
+	static int to(ByteBuffer frame) {
+		return frame.getInt(frame.position() + 9);
+	}
+
+	/**
+	 * decode the message of the frame at the position of buffer; the position
+	 * is not moved. The clock has to belong to a run of numberOfProcesses
+	 * processes and fit into the frame, else the frame is rejected as
+	 * corrupt before anything is allocated.
+	 */
+	static Message message(ByteBuffer frame, int numberOfProcesses) {
+		int frameSize = frame.getInt(frame.position()) + 4;
+		int position = frame.position() + HEADER_SIZE;
+		if (frameSize < HEADER_SIZE + 3 * 4)
+			throw new IllegalStateException("corrupt frame of " + frameSize + " bytes without a message");
+		int localVariable = frame.getInt(position);
+		int processId = frame.getInt(position + 4);
+		int n = frame.getInt(position + 8);
+
+		// -1 - n does not overflow for any negative n
+		int clockProcesses = n < 0 ? -1 - n : n;
+		long clockSize = n < 0 ? 3 * 4 : 4L * n;
+		if (clockProcesses != numberOfProcesses || processId < 0 || processId >= numberOfProcesses)
+			throw new IllegalStateException("corrupt frame: clock of process " + processId + " of "
+					+ clockProcesses + " processes in a run of " + numberOfProcesses);
+		if (HEADER_SIZE + 3 * 4 + clockSize > frameSize)
+			throw new IllegalStateException("corrupt frame: clock of " + clockSize + " bytes in a frame of "
+					+ frameSize + " bytes");
+
+		if (n < 0) {
+			int dependencyProcessId = frame.getInt(position + 16);
+			if (dependencyProcessId < -1 || dependencyProcessId >= numberOfProcesses)
+				throw new IllegalStateException("corrupt frame: dependency on process " + dependencyProcessId);
+			return new Message(new VectorClock(processId, numberOfProcesses, frame.getInt(position + 12),
+					dependencyProcessId, frame.getInt(position + 20)), localVariable);
+		}
+
+		VectorClock vectorClock = new VectorClock(processId, n);
+		for (int k = 0; k < n; k++)
+			vectorClock.vectorClock[k] = frame.getInt(position + 12 + 4 * k);
+		return new Message(vectorClock, localVariable);
+	}
+}